@@ -0,0 +1,122 @@
+package com.bitaspire.cyberlevels;
+
+import com.bitaspire.cyberlevels.cache.Cache;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Server;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginLoader;
+import org.bukkit.plugin.java.JavaPlugin;
+import sun.misc.Unsafe;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless environment for the benchmarks.
+ * <p>
+ * Bukkit gets a proxy server without online players, and the plugin is allocated without the
+ * class loader checks of {@link JavaPlugin} and initialized on a temporary data folder, where
+ * the bundled configuration files are saved and loaded as on a real server. The plugin is never
+ * enabled, so nothing is scheduled and the leaderboard is never refreshed.
+ */
+final class BenchmarkServer {
+
+    private static final Logger LOGGER = Logger.getLogger("BenchmarkServer");
+
+    private static CyberLevels plugin;
+
+    private BenchmarkServer() {}
+
+    static synchronized CyberLevels plugin() throws Exception {
+        if (plugin != null) return plugin;
+
+        LOGGER.setLevel(Level.WARNING);
+
+        Server server = stub(Server.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getLogger":
+                    return LOGGER;
+                case "getName":
+                    return "BenchmarkServer";
+                case "getVersion":
+                    return "git-Benchmark (MC: 1.16.5)";
+                case "getBukkitVersion":
+                    return "1.16.5-R0.1-SNAPSHOT";
+                case "getOfflinePlayer":
+                    return args[0] instanceof UUID ? offlinePlayer((UUID) args[0]) : null;
+                default:
+                    return null;
+            }
+        });
+        Bukkit.setServer(server);
+
+        Field field = Unsafe.class.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+
+        CyberLevels main = (CyberLevels) ((Unsafe) field.get(null)).allocateInstance(CyberLevels.class);
+        File folder = Files.createTempDirectory("cyberlevels-jmh").toFile();
+
+        Method init = JavaPlugin.class.getDeclaredMethod("init",
+                PluginLoader.class, Server.class, PluginDescriptionFile.class,
+                File.class, File.class, ClassLoader.class);
+        init.setAccessible(true);
+        init.invoke(main, null, server,
+                new PluginDescriptionFile("CyberLevels", "benchmark", CyberLevels.class.getName()),
+                folder, new File(folder, "CyberLevels.jar"), BenchmarkServer.class.getClassLoader());
+
+        CyberLevels.instance = main;
+        main.cache = new Cache(main);
+
+        return plugin = main;
+    }
+
+    static OfflinePlayer offlinePlayer(UUID uuid) {
+        return stub(OfflinePlayer.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uuid;
+                case "getName":
+                    return "Benchmark";
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * Creates a proxy answering the handled methods, and null, false or zero to the rest.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(BenchmarkServer.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            if (method.getParameterCount() == 0) return System.identityHashCode(proxy);
+                            break;
+                        case "equals":
+                            if (method.getParameterCount() == 1) return proxy == args[0];
+                            break;
+                        case "toString":
+                            if (method.getParameterCount() == 0) return type.getSimpleName() + "Stub";
+                            break;
+                    }
+
+                    Object result = handler.invoke(proxy, method, args);
+                    Class<?> returned = method.getReturnType();
+
+                    return result == null && returned.isPrimitive() && returned != void.class ?
+                            Array.get(Array.newInstance(returned, 1), 0) :
+                            result;
+                });
+    }
+}
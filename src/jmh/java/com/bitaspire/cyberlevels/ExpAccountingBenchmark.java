@@ -0,0 +1,56 @@
+package com.bitaspire.cyberlevels;
+
+import com.bitaspire.cyberlevels.user.LevelUser;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates long play sessions on the BigDecimal system: fractional gains and losses are
+ * played before measuring, then the cost of one more change is measured. As stored exp keeps
+ * a fixed scale, the time per operation should not depend on the session length.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpAccountingBenchmark {
+
+    private static final int AMOUNTS = 1 << 10;
+
+    @Param({"1000", "100000", "1000000"})
+    public int session;
+
+    private final double[] amounts = new double[AMOUNTS];
+    private LevelUser<BigDecimal> user;
+    private int next = 0;
+
+    @Setup
+    public void setup() throws Exception {
+        user = new BigDecimalLevelSystem(BenchmarkServer.plugin()).createOffline(UUID.randomUUID());
+
+        Random random = new Random(42);
+        for (int i = 0; i < AMOUNTS; i++)
+            amounts[i] = (random.nextDouble() - 0.5) * 40 / 3;
+
+        for (int i = 0; i < session; i++) change();
+    }
+
+    private void change() {
+        double amount = amounts[next++ & (AMOUNTS - 1)];
+
+        if (amount >= 0) user.addExp(amount, false);
+        else user.removeExp(-amount);
+    }
+
+    @Benchmark
+    public LevelUser<BigDecimal> changeExp() {
+        change();
+        return user;
+    }
+}
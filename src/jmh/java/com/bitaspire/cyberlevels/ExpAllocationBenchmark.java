@@ -0,0 +1,38 @@
+package com.bitaspire.cyberlevels;
+
+import com.bitaspire.cyberlevels.user.LevelUser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the allocations of an exp gain that does not level up. The gc profiler is enabled in
+ * build.gradle. The user's state holds primitives changed in place, and once inlined, the boxed
+ * operands of the {@code Operator} math and the side-effect task run on the calling thread don't
+ * escape, so {@code gc.alloc.rate.norm} is expected to be 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpAllocationBenchmark {
+
+    private static final Double ZERO = 0.0, GAIN = 12.5;
+
+    private LevelUser<Double> user;
+
+    @Setup
+    public void setup() throws Exception {
+        user = new DoubleLevelSystem(BenchmarkServer.plugin()).createOffline(UUID.randomUUID());
+    }
+
+    @Benchmark
+    public LevelUser<Double> addExp() {
+        user.setExp(ZERO, false, false, false);
+        user.addExp(GAIN, false);
+        return user;
+    }
+}
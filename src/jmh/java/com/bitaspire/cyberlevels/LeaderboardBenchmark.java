@@ -0,0 +1,66 @@
+package com.bitaspire.cyberlevels;
+
+import com.bitaspire.cyberlevels.user.LevelUser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rebuilding the top players of a leaderboard by sorting an entry of every user, as the
+ * leaderboard used to, against the top-K selection over primitive sort keys, sequential and split
+ * between fork-join workers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LeaderboardBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int users;
+
+    private DoubleLevelSystem.DoubleLeaderboard leaderboard;
+    private final List<LevelUser<Double>> list = new ArrayList<>();
+
+    @Setup
+    public void setup() throws Exception {
+        DoubleLevelSystem system = new DoubleLevelSystem(BenchmarkServer.plugin());
+        leaderboard = system.new DoubleLeaderboard(null);
+
+        Random random = new Random(42);
+        for (int i = 0; i < users; i++) {
+            LevelUser<Double> user = system.createOffline(new UUID(random.nextLong(), random.nextLong()));
+
+            user.setLevel(1 + random.nextInt((int) Math.min(system.getMaxLevel(), 100)), false);
+            user.setExp(random.nextDouble() * 1000, false, false, false);
+            list.add(user);
+        }
+    }
+
+    @Benchmark
+    public List<BaseSystem<Double>.BaseLeaderboard<Double>.Entry> sortAll() {
+        List<BaseSystem<Double>.BaseLeaderboard<Double>.Entry> entries = new ArrayList<>(list.size());
+        for (LevelUser<Double> user : list)
+            entries.add(leaderboard.new Entry(user, user.getLevel(), user.getExp()));
+
+        entries.sort(Comparator.naturalOrder());
+        return entries.subList(0, Math.min(BaseSystem.TOP_SIZE, entries.size()));
+    }
+
+    @Benchmark
+    public List<BaseSystem<Double>.BaseLeaderboard<Double>.Entry> topK() {
+        return leaderboard.rebuild(list, false);
+    }
+
+    @Benchmark
+    public List<BaseSystem<Double>.BaseLeaderboard<Double>.Entry> topKParallel() {
+        return leaderboard.rebuild(list, true);
+    }
+}
@@ -0,0 +1,141 @@
+package com.bitaspire.cyberlevels;
+
+import com.bitaspire.cyberlevels.level.Operator;
+import com.bitaspire.cyberlevels.user.LevelUser;
+import com.bitaspire.cyberlevels.user.UserManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the level engine on the bundled levels.yml: formula evaluation, exp changes with
+ * and without level-ups, and the formatting used by messages and placeholders.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelBenchmark {
+
+    @Param({"double", "bigDecimal"})
+    public String system;
+
+    private Engine<?> engine;
+
+    @Setup
+    public void setup() throws Exception {
+        CyberLevels main = BenchmarkServer.plugin();
+        engine = "double".equals(system) ?
+                new Engine<>(new DoubleLevelSystem(main)) :
+                new Engine<>(new BigDecimalLevelSystem(main));
+    }
+
+    @Benchmark
+    public Object formulaEvaluate() {
+        return engine.evaluate();
+    }
+
+    @Benchmark
+    public Object requiredExp() {
+        return engine.requiredExp();
+    }
+
+    @Benchmark
+    public Object addExpNoLevelUp() {
+        return engine.gain(engine.small);
+    }
+
+    @Benchmark
+    public Object addExpSingleLevelUp() {
+        return engine.gain(engine.single);
+    }
+
+    @Benchmark
+    public Object addExpMultiLevelUp() {
+        return engine.gain(engine.multi);
+    }
+
+    @Benchmark
+    public String decimalFormat() {
+        return engine.format();
+    }
+
+    @Benchmark
+    public String percent() {
+        return engine.percent();
+    }
+
+    @Benchmark
+    public String progressBar() {
+        return engine.progressBar();
+    }
+
+    static final class Engine<N extends Number> {
+
+        private static final long LEVEL = 10;
+
+        private final BaseSystem<N> system;
+        private final Operator<N> operator;
+        private final LevelUser<N> user;
+        private final UUID uuid = UUID.randomUUID();
+
+        private final N zero, small, single, multi, exp, required, decimal;
+
+        @SuppressWarnings("unchecked")
+        Engine(BaseSystem<N> system) {
+            this.system = system;
+            operator = system.getOperator();
+
+            user = system.createOffline(uuid);
+            system.setUserManager(BenchmarkServer.stub(UserManager.class,
+                    (proxy, method, args) -> "getUser".equals(method.getName()) ? user : null));
+
+            zero = operator.zero();
+            small = operator.fromDouble(10);
+            single = operator.fromDouble(300);
+            multi = operator.fromDouble(5000);
+
+            exp = operator.fromDouble(137.5);
+            required = system.getRequiredExp(LEVEL, uuid);
+            decimal = operator.valueOf("12345.678901");
+        }
+
+        private void reset() {
+            user.setLevel(system.getStartLevel(), false);
+            user.setExp(zero, false, false, false);
+        }
+
+        N evaluate() {
+            return system.getFormula(LEVEL).evaluate(LEVEL, uuid);
+        }
+
+        N requiredExp() {
+            return system.getRequiredExp(LEVEL, uuid);
+        }
+
+        LevelUser<N> gain(Object amount) {
+            reset();
+
+            @SuppressWarnings("unchecked")
+            N value = (N) amount;
+            user.addExp(value, false);
+
+            return user;
+        }
+
+        String format() {
+            return system.roundString(decimal);
+        }
+
+        String percent() {
+            return system.getPercent(exp, required);
+        }
+
+        String progressBar() {
+            return system.getProgressBar(exp, required);
+        }
+    }
+}
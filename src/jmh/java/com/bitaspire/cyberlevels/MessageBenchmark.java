@@ -0,0 +1,78 @@
+package com.bitaspire.cyberlevels;
+
+import me.croabeast.beanslib.key.ValueReplacer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares filling the placeholders of a lang message with a placeholder map replaced on every
+ * send, as lang messages used to be sent, against rendering a compiled {@link MessageTemplate}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+
+    private static final List<String> GAINED_EXP = Collections.singletonList("[actionbar] &d+{gainedEXP} EXP");
+
+    private static final List<String> LEVEL_INFO = Arrays.asList(
+            "[C] &8&m―――――――&8<&d&l Level&f&lStats &8>&8&m―――――――",
+            "[C] &7Player: &f{player}",
+            "[C] &7Level: &f{level}&7/&d{maxLevel}",
+            "[C] &7EXP: &f{playerEXP}&7/&d{requiredEXP} &7[&f{percent}%&7]",
+            "[C] &7[{progressBar}&7]",
+            "[C] &8&m――――――――――――――――――――――――――――――――"
+    );
+
+    private static final String[] GAINED_KEYS = {"{gainedEXP}"};
+    private static final String[] INFO_KEYS = {
+            "{player}", "{level}", "{maxLevel}", "{playerEXP}", "{requiredEXP}", "{percent}", "{progressBar}"
+    };
+
+    private final Object[] infoValues = {"Steve", 12, 100, "431.5", "1200", "35", "&d▬▬▬▬▬▬&7▬▬▬▬▬▬▬▬▬▬▬▬▬"};
+
+    private MessageTemplate gainedTemplate, infoTemplate;
+    private int counter = 0;
+
+    @Setup
+    public void setup() {
+        gainedTemplate = new MessageTemplate(GAINED_EXP);
+        infoTemplate = new MessageTemplate(LEVEL_INFO);
+    }
+
+    private static List<String> replace(List<String> list, String[] keys, Object... values) {
+        Map<String, String> placeholders = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++)
+            placeholders.put(keys[i], values[i].toString());
+
+        List<String> messages = new ArrayList<>(list);
+        messages.replaceAll(s -> ValueReplacer.forEach(placeholders, s));
+        messages.replaceAll(s -> s.replace("[actionbar]", "[action-bar]"));
+        return messages;
+    }
+
+    @Benchmark
+    public List<String> gainedExpReplaced() {
+        return replace(GAINED_EXP, GAINED_KEYS, counter++);
+    }
+
+    @Benchmark
+    public List<String> gainedExpTemplate() {
+        return gainedTemplate.render(GAINED_KEYS, counter++);
+    }
+
+    @Benchmark
+    public List<String> levelInfoReplaced() {
+        return replace(LEVEL_INFO, INFO_KEYS, infoValues);
+    }
+
+    @Benchmark
+    public List<String> levelInfoTemplate() {
+        return infoTemplate.render(INFO_KEYS, infoValues);
+    }
+}
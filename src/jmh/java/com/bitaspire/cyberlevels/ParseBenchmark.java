@@ -0,0 +1,79 @@
+package com.bitaspire.cyberlevels;
+
+import com.bitaspire.cyberlevels.user.LevelUser;
+import com.bitaspire.cyberlevels.user.UserManager;
+import com.bitaspire.libs.formula.DoubleExpressionBuilder;
+import com.bitaspire.libs.formula.expression.ExpressionBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the formula parses of each evaluation. The textual path replaces the placeholders and
+ * parses the formula on every call, as every formula was evaluated before being compiled; the
+ * compiled path binds the placeholders as variables and reports 0 parses per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    private static final long LEVEL = 10;
+
+    @Param({"25 * {level}", "sin(1) + ({minEXP} / {level}) + {maxLevel} * 2"})
+    public String formula;
+
+    private final UUID uuid = UUID.randomUUID();
+
+    private BaseSystem<Double>.BaseFormula counted;
+    private long builds = 0;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Parses {
+        public long parses;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        DoubleLevelSystem system = new DoubleLevelSystem(BenchmarkServer.plugin());
+
+        LevelUser<Double> user = system.createOffline(uuid);
+        user.setLevel(LEVEL, false);
+
+        system.setUserManager(BenchmarkServer.stub(UserManager.class,
+                (proxy, method, args) -> "getUser".equals(method.getName()) ? user : null));
+
+        counted = system.new BaseFormula(formula) {
+            @NotNull
+            @Override
+            ExpressionBuilder<Double> builder() {
+                builds++;
+                return new DoubleExpressionBuilder();
+            }
+        };
+    }
+
+    @Benchmark
+    public Double textual(Parses counter) {
+        long before = builds;
+        Double result = counted.parse(uuid);
+
+        counter.parses += builds - before;
+        return result;
+    }
+
+    @Benchmark
+    public Double compiled(Parses counter) {
+        long before = builds;
+        Double result = counted.evaluate(LEVEL, uuid);
+
+        counter.parses += builds - before;
+        return result;
+    }
+}
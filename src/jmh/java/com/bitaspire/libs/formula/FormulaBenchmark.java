@@ -0,0 +1,87 @@
+package com.bitaspire.libs.formula;
+
+import com.bitaspire.libs.formula.expression.CompiledExpression;
+import com.bitaspire.libs.formula.expression.Expression;
+import com.bitaspire.libs.formula.expression.ExpressionCompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the interpreted expression tree against the closure-compiled form and the primitive
+ * stack evaluator, using the formulas shipped in the default levels.yml.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormulaBenchmark {
+
+    private static final String[] VARIABLES = {"clvLevel", "clvMinExp", "clvMaxLevel"};
+
+    @Param({
+            "25 * clvLevel",
+            "clvLevel * 20",
+            "sin(1) + (clvMinExp / clvLevel) + clvMaxLevel * 2"
+    })
+    public String formula;
+
+    private Expression<Double> doubleExpression;
+    private CompiledExpression<Double> doubleCompiled;
+    private DoubleExpressionEvaluator doubleEvaluator;
+
+    private Expression<BigDecimal> bigExpression;
+    private CompiledExpression<BigDecimal> bigCompiled;
+
+    private final Map<String, Double> doubleMap = new HashMap<>();
+    private final Double[] doubleValues = {37.0, 0.0, 100.0};
+    private final double[] primitiveValues = {37.0, 0.0, 100.0};
+
+    private final Map<String, BigDecimal> bigMap = new HashMap<>();
+    private final BigDecimal[] bigValues = {BigDecimal.valueOf(37), BigDecimal.ZERO, BigDecimal.valueOf(100)};
+
+    @Setup
+    public void setup() {
+        doubleExpression = new DoubleExpressionBuilder().build(formula);
+        doubleCompiled = ExpressionCompiler.compile(doubleExpression, VARIABLES);
+        doubleEvaluator = DoubleExpressionEvaluator.compile(doubleExpression, VARIABLES);
+
+        bigExpression = new BigDecimalExpressionBuilder().build(formula);
+        bigCompiled = ExpressionCompiler.compile(bigExpression, VARIABLES);
+
+        for (int i = 0; i < VARIABLES.length; i++) {
+            doubleMap.put(VARIABLES[i], doubleValues[i]);
+            bigMap.put(VARIABLES[i], bigValues[i]);
+        }
+    }
+
+    @Benchmark
+    public Double doubleInterpreted() {
+        return doubleExpression.evaluate(doubleMap);
+    }
+
+    @Benchmark
+    public Double doubleCompiled() {
+        return doubleCompiled.evaluate(doubleValues);
+    }
+
+    @Benchmark
+    public double doubleStack() {
+        return doubleEvaluator.evaluate(primitiveValues);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalInterpreted() {
+        return bigExpression.evaluate(bigMap);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalCompiled() {
+        return bigCompiled.evaluate(bigValues);
+    }
+}
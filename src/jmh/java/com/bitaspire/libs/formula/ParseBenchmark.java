@@ -0,0 +1,73 @@
+package com.bitaspire.libs.formula;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures tokenizing, parsing and tree building over a corpus of level formulas, alone and
+ * followed by an evaluation, as the placeholder path of a level formula does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    private static final String[] CORPUS = {
+            "25 * clvLevel",
+            "clvLevel * 20",
+            "sin(1) + (clvMinExp / clvLevel) + clvMaxLevel * 2",
+            "100 * clvLevel ^ 1.5 + 250",
+            "floor(50 * 1.08 ^ clvLevel) + clvMinExp",
+            "max(100, clvLevel * 35, clvNextLevel * 30) - min(10, clvLevel)",
+            "round(sqrt(clvLevel) * 1000) + log(clvMaxLevel, 10) * 2.5e3",
+            "mean(clvLevel, clvNextLevel, clvMaxLevel) * (1 + clvLevel % 5) - abs -3",
+            "2(clvLevel + 1)(clvLevel + 2) / 3!",
+            "ceil(exp(clvLevel / 25)) * 10 + cbrt 27 * pi"
+    };
+
+    private static final String[] VARIABLES = {"clvLevel", "clvNextLevel", "clvMaxLevel", "clvMinExp"};
+
+    private final Map<String, Double> doubleValues = new HashMap<>();
+    private final Map<String, BigDecimal> bigValues = new HashMap<>();
+
+    @Setup
+    public void setup() {
+        double[] values = {37, 38, 100, 0};
+        for (int i = 0; i < VARIABLES.length; i++) {
+            doubleValues.put(VARIABLES[i], values[i]);
+            bigValues.put(VARIABLES[i], BigDecimal.valueOf(values[i]));
+        }
+    }
+
+    @Benchmark
+    public void doubleCorpus(Blackhole blackhole) {
+        for (String formula : CORPUS)
+            blackhole.consume(new DoubleExpressionBuilder().build(formula));
+    }
+
+    @Benchmark
+    public void bigDecimalCorpus(Blackhole blackhole) {
+        for (String formula : CORPUS)
+            blackhole.consume(new BigDecimalExpressionBuilder().build(formula));
+    }
+
+    @Benchmark
+    public void doubleBuildEvaluate(Blackhole blackhole) {
+        for (String formula : CORPUS)
+            blackhole.consume(new DoubleExpressionBuilder().build(formula).evaluate(doubleValues));
+    }
+
+    @Benchmark
+    public void bigDecimalBuildEvaluate(Blackhole blackhole) {
+        for (String formula : CORPUS)
+            blackhole.consume(new BigDecimalExpressionBuilder().build(formula).evaluate(bigValues));
+    }
+}
@@ -1,13 +1,17 @@
 package com.bitaspire.cyberlevels;
 
 import com.bitaspire.cyberlevels.user.UserManager;
+import com.bitaspire.libs.formula.expression.CompiledExpression;
+import com.bitaspire.libs.formula.expression.Expression;
+import com.bitaspire.libs.formula.expression.ExpressionCompiler;
 import com.bitaspire.libs.formula.expression.ExpressionBuilder;
 import com.bitaspire.cyberlevels.cache.Cache;
 import com.bitaspire.cyberlevels.cache.Lang;
 import com.bitaspire.cyberlevels.level.*;
+import com.bitaspire.cyberlevels.user.Database;
 import com.bitaspire.cyberlevels.user.LevelUser;
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import me.croabeast.beanslib.Beans;
 import org.apache.commons.lang3.StringUtils;
@@ -18,12 +22,23 @@ import org.bukkit.permissions.PermissionAttachmentInfo;
 import org.jetbrains.annotations.NotNull;
 
 import java.math.RoundingMode;
-import java.text.DecimalFormat;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Getter
 abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
@@ -34,14 +49,36 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
     private final long startLevel, maxLevel;
     private final int startExp;
 
-    private final Formula<N> formula;
+    private final BaseFormula formula;
+
+    @Getter(AccessLevel.NONE)
+    private final long[] customLevels;
+    @Getter(AccessLevel.NONE)
+    private final List<BaseFormula> customFormulas = new ArrayList<>();
+
+    @Getter(AccessLevel.NONE)
+    final LevelCurve curve;
+    @Getter(AccessLevel.NONE)
+    final boolean indexed;
+
+    @Getter(AccessLevel.NONE)
+    private final long[] rewardLevels;
 
-    private final Map<Long, Formula<N>> formulas = new ConcurrentHashMap<>();
     private final Map<Long, List<Reward>> rewardMap = new ConcurrentHashMap<>();
 
-    DecimalFormatter<N> formatter = null;
+    @Getter(AccessLevel.NONE)
+    private final ResultCache formulaCache;
+    @Getter(AccessLevel.NONE)
+    private final RefreshScheduler refreshScheduler;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, PlaceholderTemplate> placeholderTemplates = new ConcurrentHashMap<>();
+
+    Rounder<N> rounder = null;
     UserManager<N> userManager = null;
 
+    // Resolves the PlaceholderAPI placeholders of a text, replaced by the tests
+    BiFunction<Player, String, String> placeholderFormatter = Beans::formatPlaceholders;
+
     BaseLeaderboard<N> leaderboard = null;
 
     BaseSystem(CyberLevels main) {
@@ -50,23 +87,61 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
         long l = System.currentTimeMillis();
 
         cache = main.cache();
+        formulaCache = new ResultCache(cache.config().getFormulaCacheTtl());
+        refreshScheduler = new RefreshScheduler(cache.config().getLeaderboardRefreshInterval(), cache.config().getLeaderboardLowTps());
 
         startExp = cache.levels().getStartExp();
         startLevel = cache.levels().getStartLevel();
         maxLevel = cache.levels().getMaxLevel();
 
         formula = createFormula(cache.levels().getFormula());
-        cache.levels().getCustomFormulas().forEach((k, v) -> formulas.put(k, createFormula(v)));
+
+        Map<Long, String> customs = new TreeMap<>(cache.levels().getCustomFormulas());
+        customLevels = new long[customs.size()];
+
+        int i = 0;
+        for (Map.Entry<Long, String> entry : customs.entrySet()) {
+            customLevels[i++] = entry.getKey();
+            customFormulas.add(createFormula(entry.getValue()));
+        }
+
+        curve = createCurve();
+
+        boolean indexed = formula.isPlayerIndependent();
+        for (BaseFormula custom : customFormulas)
+            indexed &= custom.isPlayerIndependent();
+        this.indexed = indexed;
 
         rewardMap.putAll(cache.rewards().getRewards());
-        if (cache.config().isRoundingEnabled()) formatter = new DecimalFormatter<>(this);
+        rewardLevels = rewardMap.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        if (cache.config().isRoundingEnabled()) rounder = createRounder(cache.config().getRoundingDigits());
     }
 
-    abstract Formula<N> createFormula(String formula);
+    abstract BaseFormula createFormula(String formula);
+
+    abstract LevelCurve createCurve();
+
+    abstract Rounder<N> createRounder(int digits);
 
     @Override
     public Formula<N> getCustomFormula(long level) {
-        return formulas.get(level);
+        int index = Arrays.binarySearch(customLevels, level);
+        return index < 0 ? null : customFormulas.get(index);
+    }
+
+    BaseFormula getFormula(long level) {
+        int index = customLevels.length == 0 ? -1 : Arrays.binarySearch(customLevels, level);
+        return index < 0 ? formula : customFormulas.get(index);
+    }
+
+    @NotNull
+    public FormulaCache getFormulaCache() {
+        return formulaCache;
+    }
+
+    @NotNull
+    public LeaderboardRefresh getLeaderboardRefresh() {
+        return refreshScheduler;
     }
 
     @NotNull
@@ -75,7 +150,7 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
             return "0";
         }
 
-        return formatter != null ? formatter.format(amount) : getOperator().toString(amount);
+        return rounder != null ? rounder.format(amount) : getOperator().toString(amount);
     }
 
     @NotNull
@@ -84,11 +159,7 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
             return getOperator().zero();
         }
 
-        if (formatter == null) {
-            return amount;
-        }
-
-        return getOperator().valueOf(formatter.format(amount));
+        return rounder != null ? rounder.round(amount) : amount;
     }
 
     @Override
@@ -97,17 +168,13 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
             return 0D;
         }
 
-        if (formatter == null) {
-            return amount.doubleValue();
-        }
-
-        return Double.parseDouble(formatter.format(amount));
+        return (rounder != null ? rounder.round(amount) : amount).doubleValue();
     }
 
     @NotNull
     public String formatNumber(Number value) {
         if (value == null) return "0";
-        if (formatter == null) return value.toString();
+        if (rounder == null) return value.toString();
 
         N amount = getOperator().valueOf(String.valueOf(value));
         return roundString(amount);
@@ -120,67 +187,152 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
 
     @NotNull
     public N getRequiredExp(long level, UUID uuid) {
-        return formulas.getOrDefault(level, formula).evaluate(uuid);
+        return getRequiredExp(level, null, uuid);
+    }
+
+    /**
+     * Gets the exp required by a level for a player holding the given exp, or its stored exp if null.
+     */
+    @NotNull
+    N getRequiredExp(long level, N exp, UUID uuid) {
+        BaseFormula formula = getFormula(level);
+        return formula.isPlayerIndependent() ?
+                curve.get(level, formula) :
+                formula.evaluate(level, exp, uuid);
+    }
+
+    @Override
+    public void getRequiredExp(long fromLevel, double[] target, int offset, int length, UUID uuid, boolean parallel) {
+        checkRange(target, offset, length);
+
+        int index = Arrays.binarySearch(customLevels, fromLevel);
+        index = index < 0 ? -index - 1 : index;
+
+        long level = fromLevel;
+        while (length > 0) {
+            long next = index < customLevels.length ? customLevels[index] : Long.MAX_VALUE;
+            long gap = next - level;
+            int count = next == level ? 1 : gap > 0 && gap < length ? (int) gap : length;
+
+            BaseFormula formula = next == level ? customFormulas.get(index++) : this.formula;
+            formula.evaluate(level, target, offset, count, uuid, parallel);
+
+            level += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public void forEachRequiredExp(long fromLevel, long toLevel, UUID uuid, ObjLongConsumer<? super N> consumer) {
+        if (fromLevel > toLevel) return;
+
+        int index = Arrays.binarySearch(customLevels, fromLevel);
+        index = index < 0 ? -index - 1 : index;
+
+        for (long level = fromLevel; ; level++) {
+            long next = index < customLevels.length ? customLevels[index] : Long.MAX_VALUE;
+            long last = next == level ? level : Math.min(toLevel, next - 1);
+
+            BaseFormula formula = next == level ? customFormulas.get(index++) : this.formula;
+            formula.evaluate(level, last, uuid, consumer);
+
+            if ((level = last) == toLevel) return;
+        }
+    }
+
+    static void checkRange(double[] target, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > target.length - length)
+            throw new IndexOutOfBoundsException(
+                    "Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + target.length);
     }
 
     @NotNull
     public String replacePlaceholders(String string, UUID uuid, boolean safeForFormula) {
+        return replacePlaceholders(string, uuid, safeForFormula, null, null);
+    }
+
+    /**
+     * Replaces the placeholders as if the player had the given level and exp, or its stored ones if null.
+     */
+    @NotNull
+    String replacePlaceholders(String string, UUID uuid, boolean safeForFormula, Long level, N exp) {
+        if (StringUtils.isEmpty(string)) return string;
+
+        PlaceholderTemplate template = placeholderTemplate(string);
+        if (template.placeholders.length == 0 && string.indexOf('%') < 0) return string;
+
         LevelUser<N> data = userManager.getUser(uuid);
 
-        String[] keys = {"{level}", "{playerEXP}", "{nextLevel}",
-                "{maxLevel}", "{minLevel}", "{minEXP}"};
-        String[] values = {
-                String.valueOf(data.getLevel()),
-                roundString(data.getExp()),
-                String.valueOf(data.getLevel() + 1),
-                String.valueOf(maxLevel),
-                String.valueOf(startLevel),
-                String.valueOf(startExp)
-        };
-        string = StringUtils.replaceEach(string, keys, values);
-
-        String[] k = {"{player}", "{playerDisplayName}", "{playerUUID}"};
-        String[] v = {
-                data.getName(), data.isOnline() ? data.getPlayer().getDisplayName() : data.getName(),
-                data.getUuid().toString()
-        };
-        string = StringUtils.replaceEach(string, k, v);
-
-        if (!safeForFormula) {
-            k = new String[] {"{requiredEXP}", "{percent}", "{progressBar}"};
-            v = new String[] {
-                    roundString(data.getRequiredExp()),
-                    data.getPercent(), data.getProgressBar()
-            };
-            string = StringUtils.replaceEach(string, k, v);
-        }
-
-        return Beans.formatPlaceholders(data.isOnline() ? data.getPlayer() : null, string);
+        if (template.placeholders.length > 0) {
+            String[] values = new String[Placeholder.VALUES.length];
+            StringBuilder builder = new StringBuilder(string.length() + 16).append(template.texts[0]);
+
+            for (int i = 0; i < template.placeholders.length; i++) {
+                Placeholder placeholder = template.placeholders[i];
+
+                if (safeForFormula && !placeholder.formulaSafe)
+                    builder.append(placeholder.key);
+                else {
+                    String value = values[placeholder.ordinal()];
+                    if (value == null)
+                        value = values[placeholder.ordinal()] = placeholderValue(placeholder, data, level, exp);
+                    builder.append(value);
+                }
+
+                builder.append(template.texts[i + 1]);
+            }
+
+            string = builder.toString();
+        }
+
+        return string.indexOf('%') < 0 ? string :
+                placeholderFormatter.apply(data.isOnline() ? data.getPlayer() : null, string);
+    }
+
+    private PlaceholderTemplate placeholderTemplate(String string) {
+        PlaceholderTemplate template = placeholderTemplates.get(string);
+        if (template != null) return template;
+
+        template = new PlaceholderTemplate(string);
+        if (placeholderTemplates.size() < PLACEHOLDER_TEMPLATE_LIMIT)
+            placeholderTemplates.putIfAbsent(string, template);
+
+        return template;
+    }
+
+    private String placeholderValue(Placeholder placeholder, LevelUser<N> data, Long level, N exp) {
+        switch (placeholder) {
+            case LEVEL: return String.valueOf(level != null ? level : data.getLevel());
+            case PLAYER_EXP: return roundString(exp != null ? exp : data.getExp());
+            case NEXT_LEVEL: return String.valueOf((level != null ? level : data.getLevel()) + 1);
+            case MAX_LEVEL: return String.valueOf(maxLevel);
+            case MIN_LEVEL: return String.valueOf(startLevel);
+            case MIN_EXP: return String.valueOf(startExp);
+            case PLAYER: return data.getName();
+            case PLAYER_DISPLAY_NAME: return data.isOnline() ? data.getPlayer().getDisplayName() : data.getName();
+            case PLAYER_UUID: return data.getUuid().toString();
+            case REQUIRED_EXP: return roundString(data.getRequiredExp());
+            case PERCENT: return data.getPercent();
+            case PROGRESS_BAR: return data.getProgressBar();
+            default: return placeholder.key;
+        }
     }
 
     @NotNull
     public String getProgressBar(N exp, N requiredExp) {
-        Lang lang = cache.lang();
-
-        String startBar = lang.getProgressCompleteColor();
-        String middleBar = lang.getProgressIncompleteColor();
-        String bar = lang.getProgressBar();
-        String endBar = lang.getProgressEndColor();
+        return cache.lang().getProgressBarAt(getProgressCompletion(exp, requiredExp));
+    }
 
-        String def = startBar + middleBar + bar + endBar;
-        if (getOperator().compare(requiredExp, getOperator().zero()) == 0)
-            return def;
+    int getProgressCompletion(N exp, N requiredExp) {
+        if (getOperator().compare(requiredExp, getOperator().zero()) == 0) return 0;
 
-        int length = bar.length();
+        int length = cache.lang().getProgressBar().length();
 
         N scaled = getOperator().multiply(exp, getOperator().fromDouble(length));
         N divided = getOperator().divide(scaled, requiredExp, 0, RoundingMode.DOWN);
 
-        int completion = Math.min(divided.intValue(), length);
-        if (completion <= 0) return def;
-
-        return startBar + bar.substring(0, completion) +
-                middleBar + bar.substring(completion) + endBar;
+        return Math.max(0, Math.min(divided.intValue(), length));
     }
 
     @NotNull
@@ -219,11 +371,32 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
                 new OnlineUser<>(this, player);
     }
 
+    /**
+     * Creates the state stored by the users of this system.
+     */
+    UserState<N> createState(long level, N exp, N lastAmount, long lastTime) {
+        return new NumberState<>(level, exp, lastAmount, lastTime);
+    }
+
     @NotNull
     LevelUser<N> createOffline(UUID uuid) {
         return new OfflineUser<>(this, Bukkit.getOfflinePlayer(uuid));
     }
 
+    /**
+     * Creates an offline user that already holds the given level and exp, so no level change,
+     * reward or leaderboard update runs for it.
+     */
+    @NotNull
+    LevelUser<N> createOffline(UUID uuid, long level, N exp) {
+        Operator<N> operator = getOperator();
+
+        level = Math.max(startLevel, Math.min(level, maxLevel));
+        exp = operator.max(operator.normalize(exp), operator.zero());
+
+        return new OfflineUser<>(this, Bukkit.getOfflinePlayer(uuid), createState(level, exp, operator.zero(), 0L));
+    }
+
     @NotNull
     LevelUser<N> createUser(LevelUser<?> user) {
         LevelUser<N> newUser = createUser(user.getUuid());
@@ -234,404 +407,1446 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
         return newUser;
     }
 
-    static class DecimalFormatter<T extends Number> {
+    /**
+     * Rounds values up (CEILING) to the configured decimals. Rounding is plain arithmetic on the
+     * number itself; turning the result into text is a separate step, only used for display.
+     * Implementations keep no mutable shared state, as they are used from async contexts.
+     */
+    abstract static class Rounder<T extends Number> {
 
-        final DecimalFormat decimalFormat;
+        final int digits;
 
-        DecimalFormatter(BaseSystem<T> system) {
-            int decimals = system.cache.config().getRoundingDigits();
-
-            StringBuilder pattern = new StringBuilder("#");
-            if (decimals > 0) {
-                pattern.append(".");
-                for (int i = 0; i < decimals; i++)
-                    pattern.append("#");
-            }
-
-            decimalFormat = new DecimalFormat(pattern.toString());
-            decimalFormat.setRoundingMode(RoundingMode.CEILING);
-            decimalFormat.setMinimumFractionDigits(decimals);
+        Rounder(int digits) {
+            this.digits = Math.max(digits, 0);
         }
 
         @NotNull
-        String format(T value) {
-            return decimalFormat.format(value).replace(",", ".");
-        }
+        abstract T round(@NotNull T value);
+
+        /**
+         * Formats the rounded value in plain notation, always showing every decimal.
+         */
+        @NotNull
+        abstract String format(@NotNull T value);
     }
 
-    @RequiredArgsConstructor
-    abstract class BaseFormula<T extends Number> implements Formula<T> {
+    /**
+     * Internal placeholders that a compiled formula binds as real variables. The variable
+     * names are prefixed so they never start with an executable label like "min" or "max".
+     */
+    private static final String[] FORMULA_KEYS = {
+            "{level}", "{playerEXP}", "{nextLevel}",
+            "{maxLevel}", "{minLevel}", "{minEXP}"
+    };
+    static final String[] FORMULA_VARIABLES = {
+            "clvLevel", "clvPlayerExp", "clvNextLevel",
+            "clvMaxLevel", "clvMinLevel", "clvMinExp"
+    };
+
+    private static final Pattern EXTERNAL_PLACEHOLDER = Pattern.compile("%[A-Za-z][^%\\s]*%");
+
+    /**
+     * Finds the external placeholders a formula depends on, in order of appearance.
+     */
+    static Set<String> findExternalPlaceholders(String formula) {
+        if (StringUtils.isBlank(formula)) return Collections.emptySet();
+
+        Set<String> placeholders = new LinkedHashSet<>();
+        Matcher matcher = EXTERNAL_PLACEHOLDER.matcher(formula);
+        while (matcher.find()) placeholders.add(matcher.group());
+
+        return placeholders.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(placeholders);
+    }
+
+    abstract class BaseFormula implements Formula<N> {
 
-        private final Operator<T> operator;
         @Getter
         private final String asString;
+        @Getter
+        private final Set<String> externalPlaceholders;
 
-        abstract ExpressionBuilder<T> builder();
+        private final boolean expDependent;
+        private final Map<UUID, CachedResult> results;
 
-        @NotNull
-        public T evaluate(UUID uuid) {
-            String parsed = replacePlaceholders(asString, uuid, true);
-            if (StringUtils.isBlank(parsed))
-                return operator.fromDouble(0.0);
+        private final Expression<N> compiled;
+        private final CompiledExpression<N> closure;
+
+        private final boolean[] bound = new boolean[FORMULA_KEYS.length];
+
+        BaseFormula(String asString) {
+            this.asString = asString;
+
+            externalPlaceholders = findExternalPlaceholders(asString);
+            expDependent = asString != null && asString.contains(FORMULA_KEYS[1]);
+            results = externalPlaceholders.isEmpty() ? null : new ConcurrentHashMap<>();
+
+            this.compiled = compile();
+            this.closure = close();
+        }
+
+        abstract ExpressionBuilder<N> builder();
+
+        /**
+         * Builds the expression tree once, with internal placeholders as variables. Formulas
+         * using player names, PlaceholderAPI or placeholders glued to other characters keep
+         * the textual replacement path, so their result stays exactly the same.
+         */
+        private Expression<N> compile() {
+            if (StringUtils.isBlank(asString) || !externalPlaceholders.isEmpty())
+                return null;
+
+            for (int i = 0; i < FORMULA_KEYS.length; i++) {
+                String key = FORMULA_KEYS[i];
+
+                for (int index = asString.indexOf(key); index >= 0; index = asString.indexOf(key, index + 1)) {
+                    int end = index + key.length();
+                    if ((index > 0 && !isBoundary(asString.charAt(index - 1))) ||
+                            (end < asString.length() && !isBoundary(asString.charAt(end))))
+                        return null;
+
+                    bound[i] = true;
+                }
+            }
+
+            String source = StringUtils.replaceEach(asString, FORMULA_KEYS, FORMULA_VARIABLES);
+            if (source.indexOf('{') >= 0 || source.indexOf('}') >= 0) return null;
 
             try {
-                return builder().build(parsed).evaluate();
+                return builder().build(source);
             } catch (Throwable t) {
-                return operator.fromDouble(0.0);
+                return null;
             }
         }
-    }
 
-    @Getter
-    abstract class BaseLeaderboard<T extends Number> implements Leaderboard<T> {
+        private CompiledExpression<N> close() {
+            if (compiled == null) return null;
 
-        private final UserManager<T> userManager;
+            try {
+                return ExpressionCompiler.compile(compiled, FORMULA_VARIABLES);
+            } catch (Throwable t) {
+                return null;
+            }
+        }
 
-        private volatile boolean updating = false;
-        protected final List<Entry<T>> topTenPlayers = new CopyOnWriteArrayList<>();
+        private boolean isBoundary(char c) {
+            return !Character.isLetterOrDigit(c) && c != '.' && c != '_' && c != '{' && c != '}';
+        }
 
-        BaseLeaderboard(UserManager<T> manager) {
-            this.userManager = manager;
+        boolean isCompiled() {
+            return compiled != null;
         }
 
-        @NotNull
-        public List<LevelUser<T>> getTopTenPlayers() {
-            return topTenPlayers.stream().map(Entry::getUser).collect(Collectors.toList());
+        Expression<N> expression() {
+            return compiled;
         }
 
-        @Override
-        public void update() {
-            List<LevelUser<T>> users = userManager.getUsersList();
-            updating = true;
+        /**
+         * Checks if the result only depends on the level, so it can be shared by every player.
+         * @return true if no player or PlaceholderAPI value is used by this formula
+         */
+        boolean isPlayerIndependent() {
+            return compiled != null && !bound[1];
+        }
 
-            Bukkit.getScheduler().runTaskAsynchronously(main, () -> {
-                List<Entry<T>> list = new ArrayList<>();
-                for (LevelUser<T> user : users) list.add(toEntry(user));
+        private N exp(N exp, UUID uuid) {
+            return exp != null ? round(exp) : userManager.getUser(uuid).getExp();
+        }
 
-                list.sort(Comparator.naturalOrder());
-                List<Entry<T>> top10 = list.subList(0, Math.min(10, list.size()));
+        private Map<String, N> variables(long level, N exp, UUID uuid) {
+            Operator<N> operator = getOperator();
+            Map<String, N> variables = new HashMap<>(8);
 
-                Bukkit.getScheduler().runTask(main, () -> {
-                    topTenPlayers.clear();
-                    topTenPlayers.addAll(top10);
-                    updating = false;
-                });
-            });
+            if (bound[0]) variables.put(FORMULA_VARIABLES[0], operator.fromLong(level));
+            if (bound[1]) variables.put(FORMULA_VARIABLES[1], exp(exp, uuid));
+            if (bound[2]) variables.put(FORMULA_VARIABLES[2], operator.fromLong(level + 1));
+            if (bound[3]) variables.put(FORMULA_VARIABLES[3], operator.fromLong(maxLevel));
+            if (bound[4]) variables.put(FORMULA_VARIABLES[4], operator.fromLong(startLevel));
+            if (bound[5]) variables.put(FORMULA_VARIABLES[5], operator.fromLong(startExp));
+
+            return variables;
         }
 
-        @Override
-        public LevelUser<T> getTopPlayer(int position) {
-            return updating || position < 1 || position > 10 ? null : userManager.getUser(topTenPlayers.get(position - 1).getUuid());
+        /**
+         * Fills the values of the bound variables, in the order of {@link #FORMULA_VARIABLES}.
+         */
+        void values(double[] values, long level, N exp, UUID uuid) {
+            if (bound[0]) values[0] = level;
+            if (bound[1]) values[1] = exp(exp, uuid).doubleValue();
+            if (bound[2]) values[2] = level + 1;
+            if (bound[3]) values[3] = maxLevel;
+            if (bound[4]) values[4] = startLevel;
+            if (bound[5]) values[5] = startExp;
         }
 
-        @Override
-        public int checkPosition(Player player) {
-            UUID uuid = player.getUniqueId();
+        /**
+         * Resolves the values of the bound variables that don't depend on the level.
+         */
+        @SuppressWarnings("unchecked")
+        private N[] arguments(N exp, UUID uuid) {
+            Operator<N> operator = getOperator();
+            N[] values = (N[]) new Number[FORMULA_VARIABLES.length];
 
-            for (int i = 0; i < topTenPlayers.size(); i++)
-                if (uuid.equals(topTenPlayers.get(i).getUuid()))
-                    return i + 1;
+            if (bound[1]) values[1] = exp(exp, uuid);
+            if (bound[3]) values[3] = operator.fromLong(maxLevel);
+            if (bound[4]) values[4] = operator.fromLong(startLevel);
+            if (bound[5]) values[5] = operator.fromLong(startExp);
 
-            return -1;
+            return values;
         }
 
-        @Override
-        public int checkPosition(LevelUser<T> user) {
-            return checkPosition(user.getPlayer());
+        private N[] withLevel(N[] values, long level) {
+            Operator<N> operator = getOperator();
+
+            if (bound[0]) values[0] = operator.fromLong(level);
+            if (bound[2]) values[2] = operator.fromLong(level + 1);
+
+            return values;
         }
 
-        abstract Entry<T> toEntry(LevelUser<T> user);
+        N compute(long level, N exp, UUID uuid) {
+            if (closure == null) return compiled.evaluate(variables(level, exp, uuid));
+            return closure.evaluate(withLevel(arguments(exp, uuid), level));
+        }
 
-        @Getter
-        abstract class Entry<X extends Number> implements Comparable<Entry<X>> {
+        /**
+         * Evaluates the formula for a given level instead of the player's current one.
+         */
+        @NotNull
+        N evaluate(long level, UUID uuid) {
+            return evaluate(level, null, uuid);
+        }
 
-            private final UUID uuid;
-            private final String name;
-            private final long level;
-            private final X exp;
-            private final LevelUser<X> user;
+        /**
+         * Evaluates the formula for a given level and exp, or the player's stored exp if null.
+         * Formulas on the textual path only reuse their cached result for the player's own values.
+         */
+        @NotNull
+        N evaluate(long level, N exp, UUID uuid) {
+            if (compiled == null)
+                return exp == null && (uuid == null || userManager.getUser(uuid).getLevel() == level) ?
+                        evaluate(uuid) :
+                        parse(level, exp, uuid);
 
-            Entry(UUID uuid, String name, long level, X exp, LevelUser<X> user) {
-                this.uuid = uuid;
-                this.name = name;
-                this.level = level;
-                this.exp = exp;
-                this.user = user;
+            try {
+                return compute(level, exp, uuid);
+            } catch (Throwable t) {
+                return getOperator().fromDouble(0.0);
             }
         }
-    }
 
-    void updateLeaderboard() {
-        if (!main.isEnabled() || leaderboard == null) return;
+        @NotNull
+        public N evaluate(UUID uuid) {
+            if (compiled != null)
+                return evaluate(bound[0] || bound[2] ? userManager.getUser(uuid).getLevel() : startLevel, uuid);
 
-        if (cache.config().leaderboardInstantUpdate() && !leaderboard.isUpdating())
-            leaderboard.update();
-    }
+            return results != null && uuid != null ? formulaCache.get(this, uuid) : parse(uuid);
+        }
 
-    abstract class BaseUser<T extends Number> implements LevelUser<T> {
+        @NotNull
+        N parse(UUID uuid) {
+            return parse(replacePlaceholders(asString, uuid, true));
+        }
 
-        private final BaseSystem<T> system;
-        private final Operator<T> operator;
+        @NotNull
+        N parse(long level, N exp, UUID uuid) {
+            return parse(replacePlaceholders(asString, uuid, true, level, exp));
+        }
 
-        @Getter
-        private final UUID uuid;
+        private N parse(String parsed) {
+            if (StringUtils.isBlank(parsed))
+                return getOperator().fromDouble(0.0);
 
-        @Getter
-        long level;
+            try {
+                return builder().build(parsed).evaluate();
+            } catch (Throwable t) {
+                return getOperator().fromDouble(0.0);
+            }
+        }
 
-        T exp, lastAmount;
-        long lastTime = 0L;
+        /**
+         * Resolves the level-independent values once for a whole range, or returns null to let
+         * each level go through {@link #evaluate(long, UUID)}.
+         */
+        private N[] rangeArguments(UUID uuid) {
+            if (closure == null) return null;
 
-        @Getter
-        private long highestRewardedLevel;
+            try {
+                return arguments(null, uuid);
+            } catch (Throwable t) {
+                return null;
+            }
+        }
 
-        public void setHighestRewardedLevel(long value) {
-            this.highestRewardedLevel = Math.max(0L, value);
+        private N result(long level, UUID uuid, N[] values) {
+            if (values == null) return evaluate(level, uuid);
+
+            try {
+                return closure.evaluate(withLevel(values, level));
+            } catch (Throwable t) {
+                return getOperator().fromDouble(0.0);
+            }
         }
 
-        BaseUser(BaseSystem<T> system, UUID uuid) {
-            this.uuid = uuid;
-            exp = (this.operator = (this.system = system).getOperator()).fromDouble(getStartExp());
-            level = system.getStartLevel();
-            lastAmount = operator.zero();
-            highestRewardedLevel = Math.max(0L, level - 1);
+        /**
+         * Evaluates a range of levels on the calling thread. Formulas on the textual path
+         * replace the placeholders of each level.
+         */
+        void fill(long fromLevel, double[] target, int offset, int length, UUID uuid) {
+            N[] values = rangeArguments(uuid);
+            for (int i = 0; i < length; i++)
+                target[offset + i] = result(fromLevel + i, uuid, values).doubleValue();
         }
 
-        void sendLevelReward(long level) {
-            // Only give rewards if player is online
-            if (!isOnline()) {
-                // Mark as rewarded but don't give items/commands to offline player
-                if (cache.config().preventDuplicateRewards() && level > getHighestRewardedLevel()) {
-                    setHighestRewardedLevel(level);
-                }
-                return;
-            }
+        @Override
+        public void evaluate(long fromLevel, double[] target, int offset, int length, UUID uuid, boolean parallel) {
+            checkRange(target, offset, length);
+            if (length == 0) return;
+
+            // External placeholders are only resolved on the calling thread
+            if (parallel && compiled != null && length > PARALLEL_THRESHOLD)
+                ForkJoinPool.commonPool().invoke(new RangeTask(this, fromLevel, target, offset, length, uuid));
+            else
+                fill(fromLevel, target, offset, length, uuid);
+        }
 
-            try {
-                if (!cache.config().preventDuplicateRewards()) {
-                    getRewards(level).forEach(r -> r.giveAll(getPlayer()));
-                    return;
-                }
+        @Override
+        public void evaluate(long fromLevel, long toLevel, UUID uuid, ObjLongConsumer<? super N> consumer) {
+            if (fromLevel > toLevel) return;
 
-                if (level > getHighestRewardedLevel()) {
-                    getRewards(level).forEach(r -> r.giveAll(getPlayer()));
-                    setHighestRewardedLevel(level);
-                }
-            } catch (IllegalStateException e) {
-                // Player not online, skip rewards
+            N[] values = rangeArguments(uuid);
+            for (long level = fromLevel; ; level++) {
+                consumer.accept(result(level, uuid, values), level);
+                if (level == toLevel) return;
             }
         }
+    }
 
-        void updateLevel(long newLevel, boolean sendMessage, boolean giveRewards) {
-            long oldLevel = level;
+    /** Minimum amount of levels evaluated by each task of a parallel range evaluation. */
+    static final int PARALLEL_THRESHOLD = 1 << 13;
 
-            if (operator.compare(exp, operator.zero()) < 0) {
-                exp = operator.zero();
-            }
+    private class RangeTask extends RecursiveAction {
 
-            if (giveRewards && cache.config().addLevelRewards() && oldLevel < newLevel) {
-                for (long i = oldLevel + 1; i <= newLevel; i++) {
-                    level++;
-                    sendLevelReward(i);
-                }
-            } else {
-                level = newLevel;
-            }
+        private final BaseFormula formula;
+        private final long fromLevel;
+        private final double[] target;
+        private final int offset, length;
+        private final UUID uuid;
 
-            if (operator.compare(exp, operator.zero()) < 0) exp = operator.zero();
+        RangeTask(BaseFormula formula, long fromLevel, double[] target, int offset, int length, UUID uuid) {
+            this.formula = formula;
+            this.fromLevel = fromLevel;
+            this.target = target;
+            this.offset = offset;
+            this.length = length;
+            this.uuid = uuid;
+        }
 
-            // Only send messages if player is online
-            if (sendMessage && isOnline()) {
-                try {
-                    long diff = level - oldLevel;
-                    if (diff > 0) {
-                        cache.lang().sendMessage(getPlayer(), Lang::getGainedLevels, "gainedLevels", diff);
-                    } else if (diff < 0) {
-                        cache.lang().sendMessage(getPlayer(), Lang::getLostLevels, "lostLevels", Math.abs(diff));
-                    }
-                } catch (IllegalStateException e) {
-                    // Player not online, skip messages
-                }
+        @Override
+        protected void compute() {
+            if (length <= PARALLEL_THRESHOLD) {
+                formula.fill(fromLevel, target, offset, length, uuid);
+                return;
             }
 
-            system.updateLeaderboard();
+            int half = length >>> 1;
+            invokeAll(
+                    new RangeTask(formula, fromLevel, target, offset, half, uuid),
+                    new RangeTask(formula, fromLevel + half, target, offset + half, length - half, uuid)
+            );
         }
+    }
 
-        public void addLevel(long amount) {
-            long target = Math.min(level + Math.max(amount, 0), getMaxLevel());
-            updateLevel(target, true, true);
-        }
+    private static class Progress {
 
-        public void setLevel(long amount, boolean sendMessage) {
-            long min = getStartLevel(); long max = getMaxLevel();
-            long target = Math.max(Math.min(amount, max), min);
+        private final long stamp;
+        private final long time;
+        private final String percent;
+        private final int completion;
 
-            if (amount < min || amount >= max) exp = operator.zero();
-            updateLevel(target, sendMessage, false);
+        Progress(long stamp, long time, String percent, int completion) {
+            this.stamp = stamp;
+            this.time = time;
+            this.percent = percent;
+            this.completion = completion;
         }
+    }
 
-        public void removeLevel(long amount) {
-            long target = Math.max(level - Math.max(amount, 0), getStartLevel());
-            updateLevel(target, true, false);
-        }
+    private class CachedResult {
 
-        private void changeExp(T amount, T difference, boolean sendMessage, boolean doMultiplier, boolean checkLeaderboard) {
-            if (operator.compare(amount, operator.zero()) == 0) return;
+        private final long level;
+        private final N exp, value;
+        private final long time;
 
-            if (operator.compare(amount, operator.zero()) > 0 && level >= getMaxLevel())
-                return;
+        CachedResult(long level, N exp, N value, long time) {
+            this.level = level;
+            this.exp = exp;
+            this.value = value;
+            this.time = time;
+        }
+    }
 
-            // Only apply multiplier if player is online (requires permission check)
-            if (doMultiplier && operator.compare(amount, operator.zero()) > 0 && isOnline()) {
-                try {
-                    if (hasParentPerm("CyberLevels.player.multiplier.", false)) {
-                        amount = operator.multiply(amount, operator.fromDouble(getMultiplier()));
-                    }
-                } catch (IllegalStateException e) {
-                    // Player not online, skip multiplier
-                }
-            }
+    /**
+     * Keeps the results of formulas with external placeholders for each player, as long as the
+     * time to live has not passed and the player's level and exp are the ones they were computed with.
+     */
+    class ResultCache implements FormulaCache {
 
-            final T totalAmount = amount;
-            long levelsChanged = 0;
+        @Getter
+        private final long ttl;
+        private final long ttlNanos;
 
-            if (operator.compare(amount, operator.zero()) > 0) {
-                while (operator.compare(operator.add(exp, amount), rawRequiredExp()) >= 0) {
-                    if (level == getMaxLevel()) {
-                        exp = operator.zero();
-                        return;
-                    }
+        private final LongAdder hits = new LongAdder(), misses = new LongAdder();
 
-                    amount = operator.add(operator.subtract(amount, rawRequiredExp()), exp);
-                    exp = operator.zero();
-                    level++;
-                    levelsChanged++;
-                    sendLevelReward(level);
-                }
+        ResultCache(long ttl) {
+            this.ttl = Math.max(ttl, 0);
+            ttlNanos = TimeUnit.MILLISECONDS.toNanos(this.ttl);
+        }
 
-                exp = operator.add(exp, amount);
-            }
-            else {
-                amount = operator.abs(amount);
-                if (operator.compare(amount, exp) > 0) {
-                    while (operator.compare(amount, exp) > 0 && level > getStartLevel()) {
-                        amount = operator.subtract(amount, exp);
-                        level--;
-                        levelsChanged--;
-                        exp = rawRequiredExp();
-                    }
-                    exp = operator.subtract(exp, amount);
-                    if (operator.compare(exp, operator.zero()) < 0) exp = operator.zero();
-                }
-                else {
-                    exp = operator.subtract(exp, amount);
-                }
+        @NotNull
+        N get(BaseFormula formula, UUID uuid) {
+            LevelUser<N> user = ttl > 0 && userManager != null ? userManager.getUser(uuid) : null;
+            if (user == null) return formula.parse(uuid);
+
+            long level = user.getLevel();
+            N exp = formula.expDependent ? user.getExp() : null;
+            long now = System.nanoTime();
+
+            CachedResult result = formula.results.get(uuid);
+            if (result != null && now - result.time < ttlNanos && result.level == level &&
+                    (exp == null || getOperator().compare(exp, result.exp) == 0)) {
+                hits.increment();
+                return result.value;
             }
 
-            T displayTotal = (cache.config().stackComboExp() && System.currentTimeMillis() - lastTime <= 650)
-                    ? operator.add(amount, lastAmount) : amount;
-
-            // Only send messages if player is online
-            if (sendMessage && isOnline()) {
-                try {
-                    T diff = operator.subtract(Objects.equals(displayTotal, operator.zero()) ? operator.zero() : displayTotal, difference);
-
-                    if (operator.compare(totalAmount, operator.zero()) > 0) {
-                        cache.lang().sendMessage(
-                                getPlayer(), Lang::getGainedExp, new String[] {"gainedEXP", "totalGainedEXP"},
-                                system.roundString(diff), system.roundString(totalAmount)
-                        );
-                    } else if (operator.compare(totalAmount, operator.zero()) < 0) {
-                        cache.lang().sendMessage(
-                                getPlayer(), Lang::getLostExp, new String[] {"lostEXP", "totalLostEXP"},
-                                system.roundString(operator.abs(diff)), system.roundString(operator.abs(totalAmount))
-                        );
-                    }
+            misses.increment();
 
-                    if (levelsChanged > 0) {
-                        cache.lang().sendMessage(getPlayer(), Lang::getGainedLevels, "gainedLevels", levelsChanged);
-                    } else if (levelsChanged < 0) {
-                        cache.lang().sendMessage(getPlayer(), Lang::getLostLevels, "lostLevels", Math.abs(levelsChanged));
-                    }
-                } catch (IllegalStateException e) {
-                    // Player not online, skip messages
-                }
-            }
+            N value = formula.parse(uuid);
+            formula.results.put(uuid, new CachedResult(level, exp, value, now));
+            return value;
+        }
 
-            lastAmount = displayTotal;
-            lastTime = System.currentTimeMillis();
+        private List<BaseFormula> formulas() {
+            List<BaseFormula> formulas = new ArrayList<>(customFormulas.size() + 1);
+            if (formula != null && formula.results != null) formulas.add(formula);
 
-            level = Math.max(getStartLevel(), Math.min(level, getMaxLevel()));
-            if (operator.compare(exp, operator.zero()) < 0) exp = operator.zero();
+            for (BaseFormula custom : customFormulas)
+                if (custom.results != null) formulas.add(custom);
 
-            if (checkLeaderboard) system.updateLeaderboard();
+            return formulas;
         }
 
-        public void addExp(T amount, boolean doMultiplier) {
-            changeExp(amount, operator.zero(), true, doMultiplier, true);
+        @Override
+        public long getHits() {
+            return hits.sum();
+        }
+
+        @Override
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        @Override
+        public int getSize() {
+            int size = 0;
+            for (BaseFormula formula : formulas()) size += formula.results.size();
+            return size;
+        }
+
+        @Override
+        public void invalidate(UUID uuid) {
+            if (uuid == null) return;
+            for (BaseFormula formula : formulas()) formula.results.remove(uuid);
+        }
+
+        @Override
+        public void invalidate(Formula<?> formula) {
+            if (formula instanceof BaseSystem.BaseFormula) {
+                Map<UUID, ?> results = ((BaseSystem<?>.BaseFormula) formula).results;
+                if (results != null) results.clear();
+            }
+        }
+
+        @Override
+        public void invalidateAll() {
+            for (BaseFormula formula : formulas()) formula.results.clear();
+        }
+    }
+
+    /** Maximum amount of strings whose placeholder template is kept. */
+    static final int PLACEHOLDER_TEMPLATE_LIMIT = 1 << 10;
+
+    enum Placeholder {
+        LEVEL("{level}", true),
+        PLAYER_EXP("{playerEXP}", true),
+        NEXT_LEVEL("{nextLevel}", true),
+        MAX_LEVEL("{maxLevel}", true),
+        MIN_LEVEL("{minLevel}", true),
+        MIN_EXP("{minEXP}", true),
+        PLAYER("{player}", true),
+        PLAYER_DISPLAY_NAME("{playerDisplayName}", true),
+        PLAYER_UUID("{playerUUID}", true),
+        REQUIRED_EXP("{requiredEXP}", false),
+        PERCENT("{percent}", false),
+        PROGRESS_BAR("{progressBar}", false);
+
+        static final Placeholder[] VALUES = values();
+
+        private final String key;
+        private final boolean formulaSafe;
+
+        Placeholder(String key, boolean formulaSafe) {
+            this.key = key;
+            this.formulaSafe = formulaSafe;
+        }
+
+        static Placeholder of(String string, int start, int end) {
+            for (Placeholder placeholder : VALUES)
+                if (placeholder.key.length() == end - start && string.startsWith(placeholder.key, start))
+                    return placeholder;
+            return null;
+        }
+    }
+
+    /**
+     * A string split around the internal placeholders it contains, so replacing them only
+     * computes the values that are used and copies the string once.
+     */
+    static class PlaceholderTemplate {
+
+        private final String[] texts;
+        private final Placeholder[] placeholders;
+
+        PlaceholderTemplate(String string) {
+            List<String> texts = new ArrayList<>();
+            List<Placeholder> placeholders = new ArrayList<>();
+
+            int start = 0, open = string.indexOf('{');
+            while (open >= 0) {
+                int close = string.indexOf('}', open);
+                if (close < 0) break;
+
+                Placeholder placeholder = Placeholder.of(string, open, close + 1);
+                if (placeholder == null) {
+                    open = string.indexOf('{', open + 1);
+                    continue;
+                }
+
+                texts.add(string.substring(start, open));
+                placeholders.add(placeholder);
+
+                start = close + 1;
+                open = string.indexOf('{', start);
+            }
+
+            texts.add(string.substring(start));
+            this.texts = texts.toArray(new String[0]);
+            this.placeholders = placeholders.toArray(new Placeholder[0]);
+        }
+    }
+
+    /** Maximum amount of levels whose requirement is kept in a level curve. */
+    static final int CURVE_LIMIT = 1 << 20;
+
+    /**
+     * Caches the required exp of player-independent formulas, indexed by level, and the cumulative
+     * exp needed to reach each level from the start level. Both are filled lazily in blocks, and only
+     * the first {@link #CURVE_LIMIT} levels are stored; the rest are evaluated on each call.
+     *
+     * <p> Reads take no lock. Required exp is stored so any thread can read it once written, and
+     * the sums up to {@code built} are published by the volatile write of that index; only growing
+     * the sums is synchronized.
+     */
+    abstract class LevelCurve {
+
+        static final int BLOCK = 1 << 10;
+
+        final int size = (int) Math.max(0, Math.min(maxLevel - startLevel + 1, CURVE_LIMIT));
+
+        private volatile int built = -1;
+        private volatile int limit = (int) Math.max(0, Math.min(maxLevel - startLevel, size));
+
+        /**
+         * Reads a stored required exp, or null if it was not stored. It must be safe to call while
+         * another thread stores values.
+         */
+        abstract N load(int index);
+
+        abstract void store(int index, N value);
+
+        /**
+         * Reads a cumulative sum up to the published index; sums are only stored while growing.
+         */
+        abstract N loadSum(int index);
+
+        abstract void storeSum(int index, N value);
+
+        boolean accepts(N value) {
+            return getOperator().compare(value, getOperator().zero()) >= 0;
+        }
+
+        @NotNull
+        N get(long level, BaseFormula formula) {
+            long index = level - startLevel;
+            if (index < 0 || index >= size)
+                return formula.evaluate(level, null);
+
+            // Threads that miss the same level at once store the same value
+            N value = load((int) index);
+            if (value == null) store((int) index, value = formula.evaluate(level, null));
+
+            return value;
+        }
+
+        /**
+         * Returns the highest index the cumulative sums can reach. It can only shrink, when a level
+         * requires a negative or non-finite amount of exp and the sums stop being monotonic.
+         */
+        int limit() {
+            return limit;
+        }
+
+        private int grow(int index) {
+            int built = this.built;
+            if (index <= built) return index;
+
+            // Once the sums reached the limit there is nothing left to grow
+            return built == limit ? built : growLocked(index);
+        }
+
+        private synchronized int growLocked(int index) {
+            if (built < 0) {
+                storeSum(0, getOperator().zero());
+                built = 0;
+            }
+
+            index = Math.min(index, limit);
+            if (index <= built) return index;
+
+            int end = Math.min(limit, (index / BLOCK + 1) * BLOCK);
+            Operator<N> operator = getOperator();
+
+            int built = this.built;
+            try {
+                while (built < end) {
+                    long level = startLevel + built;
+                    N required = get(level, getFormula(level));
+
+                    N sum = operator.add(loadSum(built), required);
+                    if (!accepts(required) || !accepts(sum)) {
+                        limit = built;
+                        return Math.min(index, built);
+                    }
+
+                    storeSum(++built, sum);
+                }
+            } finally {
+                this.built = built;
+            }
+
+            return index;
+        }
+
+        /**
+         * Checks if the cumulative exp of the given index is known, computing it if needed.
+         */
+        boolean covers(int index) {
+            return grow(index) == index;
+        }
+
+        /**
+         * Returns the exp needed to go from the start level to the level at the given index.
+         */
+        N sum(int index) {
+            grow(index);
+            return loadSum(index);
+        }
+
+        /**
+         * Finds the highest index between {@code from} and {@code to} whose cumulative exp does not
+         * exceed the bound, assuming the one at {@code from} doesn't.
+         */
+        int floor(int from, int to, N bound) {
+            Operator<N> operator = getOperator();
+            int low = from, high = -1;
+
+            for (int step = BLOCK; low < to; step <<= 1) {
+                int probe = grow((int) Math.min((long) low + step, to));
+                if (probe <= low) break;
+
+                if (operator.compare(loadSum(probe), bound) > 0) {
+                    high = probe;
+                    break;
+                }
+
+                low = probe;
+            }
+
+            while (high - low > 1) {
+                int mid = (low + high) >>> 1;
+                if (operator.compare(loadSum(mid), bound) > 0) high = mid;
+                else low = mid;
+            }
+
+            return low;
+        }
+    }
+
+    /** Amount of players shown in the leaderboard. */
+    static final int TOP_SIZE = 10;
+
+    /** Minimum amount of users ranked by each task of a parallel leaderboard rebuild. */
+    static final int REBUILD_THRESHOLD = 1 << 15;
+
+    /**
+     * Ranks the loaded users by level, then exp, then uuid. Every loaded user has an entry in an
+     * ordered index, which is moved when the user's level or exp changes, so the top players are
+     * read from the head of the index without sorting all users. When the index is disabled, the
+     * top players are selected from every user on each update.
+     */
+    @Getter
+    abstract class BaseLeaderboard<T extends Number> implements Leaderboard<T> {
+
+        private final UserManager<T> userManager;
+
+        private volatile boolean updating = false;
+        @Getter(AccessLevel.NONE)
+        private volatile Snapshot snapshot = null;
+
+        @Getter(AccessLevel.NONE)
+        final boolean storageEnabled = cache.config().leaderboardStorage() && cache.config().database().isEnabled();
+        @Getter(AccessLevel.NONE)
+        private final boolean indexEnabled = cache.config().leaderboardIndex() && !storageEnabled;
+        @Getter(AccessLevel.NONE)
+        private final ConcurrentSkipListSet<Entry> index = new ConcurrentSkipListSet<>();
+        @Getter(AccessLevel.NONE)
+        private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+        BaseLeaderboard(UserManager<T> manager) {
+            this.userManager = manager;
+        }
+
+        /**
+         * Compares two exp amounts so the higher one comes first.
+         */
+        abstract int compareExp(T exp, T other);
+
+        /**
+         * Checks if equal {@link #expKey(double) exp keys} always mean equal exp.
+         */
+        boolean exactKeys() {
+            return false;
+        }
+
+        /**
+         * Gets back the exp of a key, only called when {@link #exactKeys() keys are exact}.
+         */
+        T expOfKey(long key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @SuppressWarnings("unchecked")
+        UserState<T> stateOf(LevelUser<T> user) {
+            return user instanceof BaseSystem.AbstractUser ?
+                    ((AbstractUser<T>) user).state() :
+                    new NumberState<>(user.getLevel(), user.getExp(), null, 0L);
+        }
+
+        Entry toEntry(LevelUser<T> user) {
+            UserState<T> state = stateOf(user);
+            long stamp, level;
+            T exp;
+
+            do {
+                stamp = state.begin();
+                level = state.level();
+                exp = state.exp();
+            }
+            while (!state.validate(stamp));
+
+            return new Entry(user, level, exp);
+        }
+
+        // Entries of the same user are replaced under the lock of its key, and built from its
+        // latest state there, so concurrent changes can't leave an outdated entry behind
+        void register(LevelUser<T> user) {
+            if (indexEnabled) entries.compute(user.getUuid(), (uuid, old) -> replace(old, toEntry(user)));
+        }
+
+        void reindex(LevelUser<T> user) {
+            if (indexEnabled)
+                entries.computeIfPresent(user.getUuid(), (uuid, old) -> old.user != user ? old : replace(old, toEntry(user)));
+        }
+
+        void unregister(UUID uuid) {
+            if (indexEnabled) entries.computeIfPresent(uuid, (key, old) -> {
+                index.remove(old);
+                return null;
+            });
+        }
+
+        private Entry replace(Entry old, Entry entry) {
+            if (old != null) {
+                if (old.user == entry.user && old.compareTo(entry) == 0) return old;
+                index.remove(old);
+            }
+
+            index.add(entry);
+            return entry;
+        }
+
+        @NotNull
+        public List<LevelUser<T>> getTopTenPlayers() {
+            Snapshot snapshot = this.snapshot;
+            return snapshot == null ? Collections.emptyList() : snapshot.users;
+        }
+
+        @Override
+        public void update() {
+            Database<T> database = storageEnabled ? userManager.getDatabase() : null;
+            if (database != null && database.isConnected()) {
+                publishAsync(() -> {
+                    List<Entry> top10 = new ArrayList<>(TOP_SIZE);
+                    for (LevelUser<T> user : database.getTopUsers(TOP_SIZE)) top10.add(toEntry(user));
+                    return top10;
+                });
+                return;
+            }
+
+            if (indexEnabled) {
+                List<Entry> top10 = new ArrayList<>(TOP_SIZE);
+                for (Entry entry : index) {
+                    if (top10.size() == TOP_SIZE) break;
+                    top10.add(entry);
+                }
+
+                publish(top10);
+                return;
+            }
+
+            List<LevelUser<T>> users = userManager.getUsersList();
+            publishAsync(() -> rebuild(users, cache.config().leaderboardParallelRebuild()));
+        }
+
+        // A failed update keeps the previous snapshot, but always clears the flag, so the
+        // refresh timer and the scheduler don't wait for it forever
+        private void publishAsync(Supplier<List<Entry>> ranking) {
+            updating = true;
+
+            try {
+                Bukkit.getScheduler().runTaskAsynchronously(main, () -> {
+                    try {
+                        publish(ranking.get());
+                    } finally {
+                        updating = false;
+                    }
+                });
+            } catch (RuntimeException e) {
+                updating = false;
+                throw e;
+            }
+        }
+
+        // Readers only ever see a complete snapshot, so it can be published from any thread
+        private void publish(List<Entry> top10) {
+            snapshot = new Snapshot(top10);
+            updating = false;
+        }
+
+        /**
+         * Ranks every given user and returns the top {@link #TOP_SIZE} entries, without sorting
+         * the whole list nor creating an entry per user.
+         *
+         * @param users the users to rank
+         * @param parallel whether to split large lists between fork-join workers
+         *
+         * @return the top entries, the first one ranked highest
+         */
+        List<Entry> rebuild(List<LevelUser<T>> users, boolean parallel) {
+            Ranking ranking = new Ranking(users);
+            int size = users.size();
+
+            int[] top = parallel && size > REBUILD_THRESHOLD ?
+                    ForkJoinPool.commonPool().invoke(ranking.new TopTask(0, size)) :
+                    ranking.top(0, size);
+
+            List<Entry> entries = new ArrayList<>(top.length);
+            for (int i : top)
+                entries.add(new Entry(users.get(i), ranking.levels[i],
+                        ranking.exps != null ? ranking.exps[i] : expOfKey(ranking.keys[i])));
+
+            return entries;
+        }
+
+        @Override
+        public LevelUser<T> getTopPlayer(int position) {
+            Snapshot snapshot = this.snapshot;
+            return snapshot == null || position < 1 || position > snapshot.users.size() ? null : snapshot.users.get(position - 1);
+        }
+
+        private int checkPosition(UUID uuid) {
+            Snapshot snapshot = this.snapshot;
+            if (snapshot == null) return -1;
+
+            for (int i = 0; i < snapshot.uuids.length; i++)
+                if (snapshot.uuids[i].equals(uuid)) return i + 1;
+
+            return -1;
+        }
+
+        @Override
+        public int checkPosition(Player player) {
+            return checkPosition(player.getUniqueId());
+        }
+
+        @Override
+        public int checkPosition(LevelUser<T> user) {
+            return checkPosition(user.getUuid());
+        }
+
+        /**
+         * An immutable ranking of the top players, replaced as a whole on every update.
+         */
+        private class Snapshot {
+
+            private final List<LevelUser<T>> users;
+            private final UUID[] uuids;
+
+            Snapshot(List<Entry> entries) {
+                List<LevelUser<T>> users = new ArrayList<>(entries.size());
+                uuids = new UUID[entries.size()];
+
+                for (int i = 0; i < uuids.length; i++) {
+                    Entry entry = entries.get(i);
+                    users.add(entry.getUser());
+                    uuids[i] = entry.getUuid();
+                }
+
+                this.users = Collections.unmodifiableList(users);
+            }
+        }
+
+        /**
+         * Sort keys of a list of users, packed in parallel arrays: the level and an exp key whose
+         * order is the order of the exp. Exact exp is only compared when the keys are equal.
+         */
+        private class Ranking {
+
+            private final List<LevelUser<T>> users;
+            private final long[] levels, keys;
+            // Only kept when equal keys don't always mean equal exp
+            private final T[] exps;
+
+            @SuppressWarnings("unchecked")
+            Ranking(List<LevelUser<T>> users) {
+                this.users = users;
+                levels = new long[users.size()];
+                keys = new long[levels.length];
+                exps = exactKeys() ? null : (T[]) new Number[levels.length];
+            }
+
+            // Negative if the user at i ranks before the user at j
+            private int compare(int i, int j) {
+                if (levels[i] != levels[j]) return Long.compare(levels[j], levels[i]);
+                if (keys[i] != keys[j]) return Long.compare(keys[j], keys[i]);
+
+                int exp = exps == null ? 0 : compareExp(exps[i], exps[j]);
+                return exp != 0 ? exp : users.get(i).getUuid().compareTo(users.get(j).getUuid());
+            }
+
+            // Keeps the best users of the range in a heap whose root is the worst of them
+            int[] top(int from, int to) {
+                int[] heap = new int[Math.min(TOP_SIZE, to - from)];
+                int size = 0;
+
+                for (int i = from; i < to; i++) {
+                    UserState<T> state = stateOf(users.get(i));
+                    long stamp;
+
+                    do {
+                        stamp = state.begin();
+                        levels[i] = state.level();
+                        keys[i] = expKey(state.expValue());
+                        if (exps != null) exps[i] = state.exp();
+                    }
+                    while (!state.validate(stamp));
+
+                    if (size < heap.length) {
+                        heap[size] = i;
+                        siftUp(heap, size++);
+                    }
+                    else if (heap.length > 0 && compare(i, heap[0]) < 0) {
+                        heap[0] = i;
+                        siftDown(heap, size);
+                    }
+                }
+
+                return sort(heap);
+            }
+
+            private void siftUp(int[] heap, int k) {
+                while (k > 0) {
+                    int parent = (k - 1) >>> 1;
+                    if (compare(heap[k], heap[parent]) <= 0) return;
+
+                    swap(heap, k, parent);
+                    k = parent;
+                }
+            }
+
+            private void siftDown(int[] heap, int size) {
+                int k = 0;
+
+                while (true) {
+                    int child = 2 * k + 1;
+                    if (child >= size) return;
+
+                    if (child + 1 < size && compare(heap[child + 1], heap[child]) > 0) child++;
+                    if (compare(heap[child], heap[k]) <= 0) return;
+
+                    swap(heap, k, child);
+                    k = child;
+                }
+            }
+
+            private void swap(int[] array, int i, int j) {
+                int value = array[i];
+                array[i] = array[j];
+                array[j] = value;
+            }
+
+            private int[] sort(int[] top) {
+                for (int i = 1; i < top.length; i++)
+                    for (int j = i; j > 0 && compare(top[j], top[j - 1]) < 0; j--)
+                        swap(top, j, j - 1);
+                return top;
+            }
+
+            private int[] merge(int[] first, int[] second) {
+                int[] top = new int[Math.min(TOP_SIZE, first.length + second.length)];
+
+                for (int i = 0, a = 0, b = 0; i < top.length; i++)
+                    top[i] = b >= second.length || (a < first.length && compare(first[a], second[b]) < 0) ?
+                            first[a++] : second[b++];
+
+                return top;
+            }
+
+            private class TopTask extends RecursiveTask<int[]> {
+
+                private final int from, to;
+
+                TopTask(int from, int to) {
+                    this.from = from;
+                    this.to = to;
+                }
+
+                @Override
+                protected int[] compute() {
+                    if (to - from <= REBUILD_THRESHOLD) return top(from, to);
+
+                    int middle = (from + to) >>> 1;
+                    TopTask first = new TopTask(from, middle), second = new TopTask(middle, to);
+
+                    invokeAll(first, second);
+                    return merge(first.join(), second.join());
+                }
+            }
+        }
+
+        @Getter
+        class Entry implements Comparable<Entry> {
+
+            private final UUID uuid;
+            private final String name;
+            private final long level;
+            private final T exp;
+            private final LevelUser<T> user;
+
+            Entry(LevelUser<T> user, long level, T exp) {
+                this.uuid = user.getUuid();
+                this.name = user.getName();
+                this.level = level;
+                this.exp = exp;
+                this.user = user;
+            }
+
+            @Override
+            public int compareTo(@NotNull Entry other) {
+                if (level != other.level)
+                    return Long.compare(other.level, level);
+
+                int exp = compareExp(this.exp, other.exp);
+                return exp != 0 ? exp : uuid.compareTo(other.uuid);
+            }
+        }
+    }
+
+    /**
+     * Gets a key whose order is the order of the given exp, the higher the greater.
+     */
+    static long expKey(double exp) {
+        long bits = Double.doubleToLongBits(exp);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Gets back the exp of a {@link #expKey(double) key}, as the sign bit is kept.
+     */
+    static double keyExp(long key) {
+        return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+    }
+
+    void trackUser(LevelUser<N> user) {
+        if (leaderboard != null) leaderboard.register(user);
+    }
+
+    void untrackUser(UUID uuid) {
+        if (leaderboard != null) leaderboard.unregister(uuid);
+    }
+
+    /**
+     * Checks if the leaderboard ranks the users saved in the database instead of the loaded ones.
+     */
+    boolean isStorageLeaderboard() {
+        return leaderboard != null && leaderboard.storageEnabled;
+    }
+
+    void updateLeaderboard() {
+        if (!main.isEnabled() || leaderboard == null) return;
+        if (cache.config().leaderboardInstantUpdate()) refreshScheduler.request();
+    }
+
+    /**
+     * Coalesces the leaderboard refreshes caused by changes. The first change schedules a refresh
+     * once the interval since the last one has passed; the ones after it are covered by that
+     * refresh. The scheduled task measures the TPS from how late it runs, and while it is below
+     * the threshold the refresh is postponed, waiting longer the lower the TPS is.
+     */
+    class RefreshScheduler implements LeaderboardRefresh {
+
+        /** Longest time a refresh is postponed because of a low TPS, in intervals. */
+        static final int MAX_DEFERRAL = 10;
+
+        @Getter
+        private final long interval;
+        private final double lowTps;
+
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private final LongAdder skipped = new LongAdder(), deferred = new LongAdder();
+
+        private volatile long firstChange, lastRefresh, scheduledAt, scheduledTicks;
+        @Getter
+        private volatile double tps = 20;
+        @Getter
+        private volatile long refreshes, lastLatency;
+        private volatile long totalLatency;
+
+        RefreshScheduler(long interval, double lowTps) {
+            this.interval = Math.max(interval, 0);
+            this.lowTps = lowTps;
+        }
+
+        @Override
+        public long getSkipped() {
+            return skipped.sum();
+        }
+
+        @Override
+        public long getDeferred() {
+            return deferred.sum();
+        }
+
+        @Override
+        public double getAverageLatency() {
+            long refreshes = this.refreshes;
+            return refreshes == 0 ? 0 : (double) totalLatency / refreshes;
+        }
+
+        @Override
+        public void request() {
+            // Saved data only changes on saves, the storage leaderboard has its own refresh task
+            if (isStorageLeaderboard()) return;
+
+            if (dirty.getAndSet(true)) {
+                skipped.increment();
+                return;
+            }
+
+            long now = System.nanoTime();
+            firstChange = now;
+            schedule(Math.max(0, interval - TimeUnit.NANOSECONDS.toMillis(now - lastRefresh)));
+        }
+
+        private void schedule(long millis) {
+            long ticks = Math.max(1, (millis + 49) / 50);
+
+            scheduledAt = System.nanoTime();
+            scheduledTicks = ticks;
+            Bukkit.getScheduler().runTaskLater(main, this::run, ticks);
+        }
+
+        private void run() {
+            if (!main.isEnabled() || leaderboard == null) {
+                dirty.set(false);
+                return;
+            }
+
+            long now = System.nanoTime();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(now - scheduledAt);
+            tps = Math.min(20, scheduledTicks * 1000.0 / Math.max(elapsed, 1));
+
+            long waited = TimeUnit.NANOSECONDS.toMillis(now - firstChange);
+            if (tps < lowTps && waited < interval * MAX_DEFERRAL) {
+                deferred.increment();
+
+                double ratio = 20 / Math.max(tps, 1);
+                schedule((long) (Math.max(interval, 50) * ratio * ratio));
+                return;
+            }
+
+            // A rebuild still in flight will not see the latest changes
+            if (leaderboard.isUpdating()) {
+                schedule(50);
+                return;
+            }
+
+            dirty.set(false);
+            lastRefresh = now;
+
+            lastLatency = waited;
+            totalLatency += waited;
+            refreshes++;
+
+            leaderboard.update();
+        }
+    }
+
+    /**
+     * The level and exp of a user, changed in place so a change doesn't allocate a new state.
+     *
+     * <p> A change is computed from the fields read after {@link #begin()}, and only written if
+     * no other change was written since, otherwise it is computed again. The stamp is odd while
+     * the fields are written, so reading more than one field is repeated until
+     * {@link #validate(long)} confirms they belong to the same change.
+     */
+    abstract static class UserState<T extends Number> {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<UserState> STAMP =
+                AtomicLongFieldUpdater.newUpdater(UserState.class, "stamp");
+
+        private volatile long stamp;
+
+        abstract long level();
+
+        /**
+         * Gets the exp before rounding.
+         */
+        abstract T exp();
+
+        /**
+         * Gets the exp as a double, for sort keys.
+         */
+        double expValue() {
+            return exp().doubleValue();
+        }
+
+        /**
+         * Gets the last gained amount, stacked while gains come in quick succession.
+         */
+        abstract T lastAmount();
+
+        abstract long lastTime();
+
+        /**
+         * Stores the fields, only called by {@link #write} while the stamp is odd.
+         */
+        abstract void set(long level, T exp, T lastAmount, long lastTime);
+
+        /**
+         * Waits for the change being written, if any, and returns the stamp the fields are read with.
+         */
+        long begin() {
+            long stamp;
+            while (((stamp = this.stamp) & 1) != 0) Thread.yield();
+            return stamp;
+        }
+
+        /**
+         * Checks if no change was written since the given stamp was returned by {@link #begin()}.
+         */
+        boolean validate(long stamp) {
+            return this.stamp == stamp;
+        }
+
+        /**
+         * Writes a change computed from the fields read with the given stamp.
+         * @return false if another change was written since, so nothing was written
+         */
+        boolean write(long stamp, long level, T exp, T lastAmount, long lastTime) {
+            if (!STAMP.compareAndSet(this, stamp, stamp + 1)) return false;
+
+            set(level, exp, lastAmount, lastTime);
+            this.stamp = stamp + 2;
+            return true;
+        }
+    }
+
+    static final class NumberState<T extends Number> extends UserState<T> {
+
+        private volatile long level;
+        private volatile T exp, lastAmount;
+        private volatile long lastTime;
+
+        NumberState(long level, T exp, T lastAmount, long lastTime) {
+            set(level, exp, lastAmount, lastTime);
         }
 
         @Override
-        public void addExp(String amount, boolean multiply) {
-            addExp(operator.valueOf(amount), multiply);
+        void set(long level, T exp, T lastAmount, long lastTime) {
+            this.level = level;
+            this.exp = exp;
+            this.lastAmount = lastAmount;
+            this.lastTime = lastTime;
         }
 
-        public void setExp(T amount, boolean checkLevel, boolean sendMessage, boolean checkLeaderboard) {
-            amount = operator.abs(amount);
+        @Override
+        long level() {
+            return level;
+        }
 
-            if (checkLevel) {
-                T oldExp = this.exp;
-                exp = operator.zero();
-                changeExp(amount, oldExp, sendMessage, false, checkLeaderboard);
-            }
-            else this.exp = amount;
+        @Override
+        T exp() {
+            return exp;
+        }
 
-            if (checkLeaderboard) system.updateLeaderboard();
+        @Override
+        T lastAmount() {
+            return lastAmount;
         }
 
         @Override
-        public void setExp(String amount, boolean checkLevel, boolean sendMessage, boolean checkLeaderboard) {
-            setExp(operator.valueOf(amount), checkLevel, sendMessage, checkLeaderboard);
+        long lastTime() {
+            return lastTime;
         }
+    }
 
-        public void removeExp(T amount) {
-            T positive = operator.max(amount, operator.zero());
-            T negative = operator.negate(positive);
-            changeExp(negative, operator.zero(), true, false, true);
+    /**
+     * Level, rewards and permission handling shared by every user, whatever the way it keeps its exp.
+     *
+     * <p> The state of a user is changed atomically, so exp and levels can be changed from any
+     * thread. Rewards, messages and leaderboard updates are run on the main thread.
+     */
+    abstract class AbstractUser<T extends Number> implements LevelUser<T> {
+
+        final BaseSystem<T> system;
+
+        @Getter
+        private final UUID uuid;
+
+        @Getter
+        private volatile long highestRewardedLevel;
+
+        // NaN until read from the permissions
+        private volatile double multiplier = Double.NaN;
+
+        private volatile Progress progress;
+
+        public void setHighestRewardedLevel(long value) {
+            this.highestRewardedLevel = Math.max(0L, value);
         }
 
+        AbstractUser(BaseSystem<T> system, UUID uuid) {
+            this.system = system;
+            this.uuid = uuid;
+            highestRewardedLevel = Math.max(0L, system.getStartLevel() - 1);
+        }
+
+        /**
+         * Gets the state of the user, changed in place.
+         */
+        abstract UserState<T> state();
+
         @Override
-        public void removeExp(String amount) {
-            removeExp(operator.valueOf(amount));
+        public long getLevel() {
+            return state().level();
         }
 
-        @NotNull
-        public T getExp() {
-            return system.round(exp);
+        /**
+         * Moves the user in the leaderboard index after its state changed.
+         */
+        void reindex() {
+            BaseSystem<T>.BaseLeaderboard<T> leaderboard = system.leaderboard;
+            if (leaderboard != null) leaderboard.reindex(this);
         }
 
-        private T rawRequiredExp() {
-            return system.getRequiredExp(level, uuid);
+        void dispatch(Runnable task) {
+            if (!main.isEnabled() || Bukkit.isPrimaryThread()) task.run();
+            else Bukkit.getScheduler().runTask(main, task);
         }
 
-        @NotNull
-        public T getRequiredExp() {
-            return system.round(rawRequiredExp());
+        void sendLevelReward(long level) {
+            // Only give rewards if player is online
+            if (!isOnline()) {
+                // Mark as rewarded but don't give items/commands to offline player
+                if (cache.config().preventDuplicateRewards() && level > getHighestRewardedLevel()) {
+                    setHighestRewardedLevel(level);
+                }
+                return;
+            }
+
+            try {
+                if (!cache.config().preventDuplicateRewards()) {
+                    getRewards(level).forEach(r -> r.giveAll(getPlayer()));
+                    return;
+                }
+
+                if (level > getHighestRewardedLevel()) {
+                    getRewards(level).forEach(r -> r.giveAll(getPlayer()));
+                    setHighestRewardedLevel(level);
+                }
+            } catch (IllegalStateException e) {
+                // Player not online, skip rewards
+            }
         }
 
-        @NotNull
-        public T getRemainingExp() {
-            return system.round(operator.subtract(rawRequiredExp(), exp));
+        void sendLevelRewards(long from, long to) {
+            long[] levels = system.rewardLevels;
+
+            int index = Arrays.binarySearch(levels, from + 1);
+            for (index = index < 0 ? -index - 1 : index; index < levels.length && levels[index] <= to; index++)
+                sendLevelReward(levels[index]);
+
+            if (cache.config().preventDuplicateRewards() && to > getHighestRewardedLevel())
+                setHighestRewardedLevel(to);
         }
 
-        @NotNull
-        public String getPercent() {
-            return system.getPercent(exp, getRequiredExp());
+        void sendLevelMessage(long diff) {
+            // Only send messages if player is online
+            if (diff == 0 || !isOnline()) return;
+
+            try {
+                if (diff > 0) {
+                    cache.lang().sendMessage(getPlayer(), Lang::getGainedLevels, "gainedLevels", diff);
+                } else {
+                    cache.lang().sendMessage(getPlayer(), Lang::getLostLevels, "lostLevels", Math.abs(diff));
+                }
+            } catch (IllegalStateException e) {
+                // Player not online, skip messages
+            }
         }
 
-        @NotNull
-        public String getProgressBar() {
-            return system.getProgressBar(exp, getRequiredExp());
+        /**
+         * Runs the side effects of a level change, once the new level is stored.
+         */
+        void levelChanged(long oldLevel, long newLevel, boolean sendMessage, boolean giveRewards) {
+            dispatch(() -> {
+                if (giveRewards && cache.config().addLevelRewards() && oldLevel < newLevel)
+                    sendLevelRewards(oldLevel, newLevel);
+
+                if (sendMessage) sendLevelMessage(newLevel - oldLevel);
+                system.updateLeaderboard();
+            });
         }
 
         @Override
@@ -649,6 +1864,16 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
 
         @Override
         public double getMultiplier() {
+            double multiplier = this.multiplier;
+            return multiplier == multiplier ? multiplier : (this.multiplier = readMultiplier());
+        }
+
+        @Override
+        public void refreshMultiplier() {
+            if (isOnline()) multiplier = readMultiplier();
+        }
+
+        private double readMultiplier() {
             double multiplier = 0;
 
             for (PermissionAttachmentInfo perm : getPlayer().getEffectivePermissions()) {
@@ -667,6 +1892,43 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
             return multiplier == 0 ? 1 : multiplier;
         }
 
+        // Requirements of player-dependent formulas may change without the user changing,
+        // so their progress is only reused while the formula cache would reuse the requirement
+        private Progress progress() {
+            Progress progress = this.progress;
+            UserState<T> state = state();
+            long now = System.nanoTime(), stamp = state.begin();
+
+            if (progress != null && progress.stamp == stamp &&
+                    (system.indexed || now - progress.time < system.formulaCache.ttlNanos))
+                return progress;
+
+            long level;
+            T exp;
+
+            do {
+                stamp = state.begin();
+                level = state.level();
+                exp = state.exp();
+            }
+            while (!state.validate(stamp));
+
+            T required = system.round(system.getRequiredExp(level, uuid));
+
+            return this.progress = new Progress(stamp, now,
+                    system.getPercent(exp, required), system.getProgressCompletion(exp, required));
+        }
+
+        @NotNull
+        public String getPercent() {
+            return progress().percent;
+        }
+
+        @NotNull
+        public String getProgressBar() {
+            return cache.lang().getProgressBarAt(progress().completion);
+        }
+
         @Override
         public int compareTo(@NotNull LevelUser<T> o) {
             return system.getLeaderboard().toEntry(this).compareTo(system.getLeaderboard().toEntry(o));
@@ -677,13 +1939,319 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
             return "LevelUser{" +
                     "player=" + getName() +
                     ", uuid=" + uuid +
-                    ", level=" + level +
+                    ", level=" + getLevel() +
                     ", exp=" + getExp() +
                     ", progress=" + getPercent() + "%" +
                     '}';
         }
     }
 
+    /**
+     * Level and exp math of every system, run through its {@link Operator}. The state is created
+     * by the system and changed in place, so the double system keeps it in primitives and an exp
+     * change allocates nothing once the operator calls are inlined.
+     */
+    abstract class BaseUser<T extends Number> extends AbstractUser<T> {
+
+        private final Operator<T> operator;
+        private final UserState<T> state;
+
+        BaseUser(BaseSystem<T> system, UUID uuid, UserState<T> state) {
+            super(system, uuid);
+            operator = system.getOperator();
+            this.state = state != null ? state : system.createState(getStartLevel(),
+                    operator.normalize(operator.fromDouble(getStartExp())), operator.zero(), 0L);
+        }
+
+        @Override
+        UserState<T> state() {
+            return state;
+        }
+
+        void updateLevel(LongUnaryOperator function, boolean resetExp, boolean sendMessage, boolean giveRewards) {
+            long stamp, oldLevel, newLevel;
+            T exp;
+
+            do {
+                stamp = state.begin();
+                oldLevel = state.level();
+                exp = state.exp();
+
+                if (resetExp || operator.compare(exp, operator.zero()) < 0) exp = operator.zero();
+                newLevel = function.applyAsLong(oldLevel);
+            }
+            while (!state.write(stamp, newLevel, exp, state.lastAmount(), state.lastTime()));
+
+            reindex();
+            levelChanged(oldLevel, newLevel, sendMessage, giveRewards);
+        }
+
+        public void addLevel(long amount) {
+            updateLevel(level -> Math.min(level + Math.max(amount, 0), getMaxLevel()), false, true, true);
+        }
+
+        public void setLevel(long amount, boolean sendMessage) {
+            long min = getStartLevel(); long max = getMaxLevel();
+            long target = Math.max(Math.min(amount, max), min);
+
+            updateLevel(level -> target, amount < min || amount >= max, sendMessage, false);
+        }
+
+        public void removeLevel(long amount) {
+            updateLevel(level -> Math.max(level - Math.max(amount, 0), getStartLevel()), false, true, false);
+        }
+
+        private T required(long level) {
+            return system.getRequiredExp(level, getUuid());
+        }
+
+        // Formulas using the player's level or exp see the ones of the level being crossed
+        private T required(long level, T exp) {
+            return system.getRequiredExp(level, exp, getUuid());
+        }
+
+        // Computes the new state from the current one, so it can be retried until no other thread
+        // changed the user in between; side effects only run for the state that was stored
+        private void changeExp(T amount, boolean reset, boolean sendMessage, boolean doMultiplier, boolean checkLeaderboard) {
+            final T zero = operator.zero();
+
+            // Only apply multiplier if player is online
+            if (doMultiplier && operator.compare(amount, zero) > 0 && isOnline()) {
+                try {
+                    double multiplier = getMultiplier();
+                    if (multiplier != 1) amount = operator.multiply(amount, operator.fromDouble(multiplier));
+                } catch (IllegalStateException e) {
+                    // Player not online, skip multiplier
+                }
+            }
+
+            final T totalAmount = amount;
+            final boolean gain = operator.compare(totalAmount, zero) > 0;
+
+            // Grows the cumulative index up to the current level before the loop; the curve is read
+            // without locking once grown, so a retry after losing the race takes no lock for it
+            if (gain && system.indexed) {
+                long index = state.level() - getStartLevel();
+                if (index >= 0 && index < CURVE_LIMIT) system.curve.covers((int) index + 1);
+            }
+
+            long stamp, oldLevel, level, lastTime;
+            T oldExp, exp, lastAmount;
+            boolean skipped, capped;
+
+            do {
+                stamp = state.begin();
+                skipped = capped = false;
+
+                oldLevel = level = state.level();
+                oldExp = state.exp();
+                lastAmount = state.lastAmount();
+                lastTime = state.lastTime();
+
+                exp = reset ? zero : oldExp;
+                amount = totalAmount;
+
+                if (operator.compare(amount, zero) == 0 || (gain && level >= getMaxLevel())) {
+                    if (!reset) return;
+
+                    exp = zero;
+                    skipped = true;
+                    continue;
+                }
+
+                if (gain) {
+                    T required = required(level, exp);
+
+                    // The cumulative index is only looked up when at least one level is gained
+                    if (operator.compare(operator.add(exp, amount), required) >= 0) {
+                        // Moves up every level the cumulative index can resolve, leaving the rest to the regular loop
+                        long index = level - getStartLevel();
+                        if (system.indexed && index >= 0 && index < CURVE_LIMIT && system.curve.covers((int) index + 1)) {
+                            int from = (int) index;
+                            T bound = operator.add(system.curve.sum(from), operator.add(exp, amount));
+
+                            int to = system.curve.floor(from, system.curve.limit(), bound);
+                            if (to != from) {
+                                amount = operator.max(operator.subtract(bound, system.curve.sum(to)), zero);
+                                exp = zero;
+                                level = getStartLevel() + to;
+                                required = required(level, exp);
+                            }
+                        }
+
+                        while (operator.compare(operator.add(exp, amount), required) >= 0) {
+                            if (level == getMaxLevel()) {
+                                capped = true;
+                                break;
+                            }
+
+                            amount = operator.add(operator.subtract(amount, required), exp);
+                            exp = zero;
+                            required = required(++level, exp);
+                        }
+                    }
+
+                    exp = capped ? zero : operator.add(exp, amount);
+                }
+                else {
+                    amount = operator.abs(amount);
+                    if (operator.compare(amount, exp) > 0) {
+                        // Moves down to the level the regular loop would stop at
+                        long index = level - getStartLevel();
+                        if (system.indexed && index > 0 && index <= CURVE_LIMIT && system.curve.covers((int) index)) {
+                            int from = (int) index;
+                            T bound = operator.subtract(system.curve.sum(from), operator.subtract(amount, exp));
+
+                            int to = operator.compare(bound, zero) < 0 ? 0 : system.curve.floor(0, from - 1, bound);
+
+                            T sum = system.curve.sum(to + 1);
+                            level = getStartLevel() + to;
+                            exp = operator.subtract(sum, system.curve.sum(to));
+                            amount = operator.subtract(sum, bound);
+                        }
+
+                        while (operator.compare(amount, exp) > 0 && level > getStartLevel()) {
+                            amount = operator.subtract(amount, exp);
+                            level--;
+                            exp = required(level, exp);
+                        }
+                        exp = operator.subtract(exp, amount);
+                    }
+                    else {
+                        exp = operator.subtract(exp, amount);
+                    }
+                }
+
+                level = Math.max(getStartLevel(), Math.min(level, getMaxLevel()));
+                exp = operator.compare(exp, zero) < 0 ? zero : operator.normalize(exp);
+
+                if (capped) continue;
+
+                long now = System.currentTimeMillis();
+                lastAmount = (cache.config().stackComboExp() && now - lastTime <= 650)
+                        ? operator.add(amount, lastAmount) : amount;
+                lastTime = now;
+            }
+            while (!state.write(stamp, level, exp, lastAmount, lastTime));
+
+            reindex();
+            if (skipped) return;
+
+            final long fromLevel = oldLevel, newLevel = level;
+            final T diff = capped ? null : operator.subtract(lastAmount, reset ? oldExp : zero);
+
+            dispatch(() -> {
+                if (newLevel > fromLevel) sendLevelRewards(fromLevel, newLevel);
+
+                if (sendMessage && diff != null) sendExpMessage(diff, totalAmount);
+                if (sendMessage) sendLevelMessage(newLevel - fromLevel);
+
+                if (checkLeaderboard) system.updateLeaderboard();
+            });
+        }
+
+        private void sendExpMessage(T diff, T totalAmount) {
+            // Only send messages if player is online
+            if (!isOnline()) return;
+
+            try {
+                if (operator.compare(totalAmount, operator.zero()) > 0) {
+                    cache.lang().sendMessage(
+                            getPlayer(), Lang::getGainedExp, new String[] {"gainedEXP", "totalGainedEXP"},
+                            system.roundString(diff), system.roundString(totalAmount)
+                    );
+                } else if (operator.compare(totalAmount, operator.zero()) < 0) {
+                    cache.lang().sendMessage(
+                            getPlayer(), Lang::getLostExp, new String[] {"lostEXP", "totalLostEXP"},
+                            system.roundString(operator.abs(diff)), system.roundString(operator.abs(totalAmount))
+                    );
+                }
+            } catch (IllegalStateException e) {
+                // Player not online, skip messages
+            }
+        }
+
+        public void addExp(T amount, boolean doMultiplier) {
+            changeExp(amount, false, true, doMultiplier, true);
+        }
+
+        @Override
+        public void addExp(String amount, boolean multiply) {
+            addExp(operator.valueOf(amount), multiply);
+        }
+
+        @Override
+        public void addExp(double amount, boolean multiply, boolean checkLeaderboard) {
+            changeExp(operator.fromDouble(amount), false, true, multiply, checkLeaderboard);
+        }
+
+        public void setExp(T amount, boolean checkLevel, boolean sendMessage, boolean checkLeaderboard) {
+            amount = operator.abs(amount);
+
+            if (checkLevel) changeExp(amount, true, sendMessage, false, checkLeaderboard);
+            else {
+                T exp = operator.normalize(amount);
+                long stamp;
+
+                do stamp = state.begin();
+                while (!state.write(stamp, state.level(), exp, state.lastAmount(), state.lastTime()));
+                reindex();
+            }
+
+            if (checkLeaderboard) dispatch(system::updateLeaderboard);
+        }
+
+        @Override
+        public void setExp(String amount, boolean checkLevel, boolean sendMessage, boolean checkLeaderboard) {
+            setExp(operator.valueOf(amount), checkLevel, sendMessage, checkLeaderboard);
+        }
+
+        public void removeExp(T amount) {
+            removeExp(amount, true);
+        }
+
+        private void removeExp(T amount, boolean checkLeaderboard) {
+            T positive = operator.max(amount, operator.zero());
+            T negative = operator.negate(positive);
+            changeExp(negative, false, true, false, checkLeaderboard);
+        }
+
+        @Override
+        public void removeExp(String amount) {
+            removeExp(operator.valueOf(amount));
+        }
+
+        @Override
+        public void removeExp(double amount, boolean checkLeaderboard) {
+            removeExp(operator.fromDouble(amount), checkLeaderboard);
+        }
+
+        @NotNull
+        public T getExp() {
+            return system.round(state.exp());
+        }
+
+        @NotNull
+        public T getRequiredExp() {
+            return system.round(required(state.level()));
+        }
+
+        @NotNull
+        public T getRemainingExp() {
+            long stamp, level;
+            T exp;
+
+            do {
+                stamp = state.begin();
+                level = state.level();
+                exp = state.exp();
+            }
+            while (!state.validate(stamp));
+
+            return system.round(operator.subtract(required(level), exp));
+        }
+    }
+
     @Getter
     class OnlineUser<T extends Number> extends BaseUser<T> {
 
@@ -693,7 +2261,7 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
         transient OfflinePlayer offline;
 
         OnlineUser(BaseSystem<T> system, Player player) {
-            super(system, player.getUniqueId());
+            super(system, player.getUniqueId(), null);
             this.name = (this.player = player).getName();
             offline = Bukkit.getOfflinePlayer(getUuid());
         }
@@ -713,7 +2281,11 @@ abstract class BaseSystem<N extends Number> implements LevelSystem<N> {
         private final String name;
 
         OfflineUser(BaseSystem<T> system, OfflinePlayer offline) {
-            super(system, offline.getUniqueId());
+            this(system, offline, null);
+        }
+
+        OfflineUser(BaseSystem<T> system, OfflinePlayer offline, UserState<T> state) {
+            super(system, offline.getUniqueId(), state);
             this.name = (this.offline = offline).getName();
         }
 
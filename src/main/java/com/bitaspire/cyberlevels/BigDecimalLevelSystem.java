@@ -2,7 +2,6 @@ package com.bitaspire.cyberlevels;
 
 import com.bitaspire.cyberlevels.user.UserManager;
 import com.bitaspire.libs.formula.BigDecimalExpressionBuilder;
-import com.bitaspire.cyberlevels.level.Formula;
 import com.bitaspire.cyberlevels.level.Operator;
 import com.bitaspire.cyberlevels.user.LevelUser;
 import com.bitaspire.libs.formula.expression.ExpressionBuilder;
@@ -10,7 +9,9 @@ import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.math.RoundingMode;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @Getter
 final class BigDecimalLevelSystem extends BaseSystem<BigDecimal> {
@@ -21,6 +22,9 @@ final class BigDecimalLevelSystem extends BaseSystem<BigDecimal> {
         super(main);
         setLeaderboardFunction(BigDecimalLeaderboard::new);
 
+        int scale = Math.max(cache.config().getBigDecimalScale(), 0);
+        MathContext context = new MathContext(Math.max(cache.config().getBigDecimalPrecision(), 1), RoundingMode.HALF_UP);
+
         operator = new Operator<BigDecimal>() {
             @Override
             public BigDecimal zero() {
@@ -32,6 +36,11 @@ final class BigDecimalLevelSystem extends BaseSystem<BigDecimal> {
                 return new BigDecimal(value);
             }
 
+            @Override
+            public BigDecimal fromLong(long value) {
+                return BigDecimal.valueOf(value);
+            }
+
             @Override
             public BigDecimal fromDouble(double value) {
                 return BigDecimal.valueOf(value);
@@ -39,17 +48,17 @@ final class BigDecimalLevelSystem extends BaseSystem<BigDecimal> {
 
             @Override
             public BigDecimal add(BigDecimal a, BigDecimal b) {
-                return a.add(b);
+                return a.add(b, context);
             }
 
             @Override
             public BigDecimal subtract(BigDecimal a, BigDecimal b) {
-                return a.subtract(b);
+                return a.subtract(b, context);
             }
 
             @Override
             public BigDecimal multiply(BigDecimal a, BigDecimal b) {
-                return a.multiply(b);
+                return a.multiply(b, context);
             }
 
             @Override
@@ -91,6 +100,16 @@ final class BigDecimalLevelSystem extends BaseSystem<BigDecimal> {
             public String toString(BigDecimal value) {
                 return value.toPlainString();
             }
+
+            @Override
+            public BigDecimal normalize(BigDecimal value) {
+                return value.scale() == scale ? value : value.setScale(scale, RoundingMode.HALF_UP);
+            }
+
+            @Override
+            public String serialize(BigDecimal value) {
+                return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+            }
         };
     }
 
@@ -101,25 +120,68 @@ final class BigDecimalLevelSystem extends BaseSystem<BigDecimal> {
         }
 
         @Override
-        Entry<BigDecimal> toEntry(LevelUser<BigDecimal> user) {
-            return new Entry<BigDecimal>(
-                    user.getUuid(), user.getName(),
-                    user.getLevel(), user.getExp(), user
-            ) {
-                @Override
-                public int compareTo(@NotNull Entry<BigDecimal> other) {
-                    if (getLevel() != other.getLevel())
-                        return Long.compare(other.getLevel(), getLevel());
-
-                    return other.getExp().compareTo(getExp());
-                }
-            };
+        int compareExp(BigDecimal exp, BigDecimal other) {
+            return other.compareTo(exp);
         }
     }
 
     @Override
-    Formula<BigDecimal> createFormula(String string) {
-        return new BaseFormula<BigDecimal>(operator, string) {
+    LevelCurve createCurve() {
+        return new LevelCurve() {
+            private final AtomicReferenceArray<AtomicReferenceArray<BigDecimal>> values =
+                    new AtomicReferenceArray<>(size / BLOCK + 1);
+            private final BigDecimal[][] sums = new BigDecimal[(size + 1) / BLOCK + 1][];
+
+            @Override
+            BigDecimal load(int index) {
+                AtomicReferenceArray<BigDecimal> block = values.get(index / BLOCK);
+                return block == null ? null : block.get(index % BLOCK);
+            }
+
+            @Override
+            void store(int index, BigDecimal value) {
+                AtomicReferenceArray<BigDecimal> block = values.get(index / BLOCK);
+                if (block == null &&
+                        !values.compareAndSet(index / BLOCK, null, block = new AtomicReferenceArray<>(BLOCK)))
+                    block = values.get(index / BLOCK);
+
+                block.set(index % BLOCK, value);
+            }
+
+            @Override
+            BigDecimal loadSum(int index) {
+                return sums[index / BLOCK][index % BLOCK];
+            }
+
+            @Override
+            void storeSum(int index, BigDecimal value) {
+                BigDecimal[] block = sums[index / BLOCK];
+                if (block == null) sums[index / BLOCK] = block = new BigDecimal[BLOCK];
+                block[index % BLOCK] = value;
+            }
+        };
+    }
+
+    @Override
+    Rounder<BigDecimal> createRounder(int digits) {
+        return new Rounder<BigDecimal>(digits) {
+            @NotNull
+            @Override
+            BigDecimal round(@NotNull BigDecimal value) {
+                return value.setScale(this.digits, RoundingMode.CEILING);
+            }
+
+            @NotNull
+            @Override
+            String format(@NotNull BigDecimal value) {
+                return round(value).toPlainString();
+            }
+        };
+    }
+
+    @Override
+    BaseFormula createFormula(String string) {
+        return new BaseFormula(string) {
             @NotNull
             ExpressionBuilder<BigDecimal> builder() {
                 return new BigDecimalExpressionBuilder();
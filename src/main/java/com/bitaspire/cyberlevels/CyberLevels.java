@@ -86,6 +86,12 @@ public final class CyberLevels extends JavaPlugin {
 
         if (hookManager != null) hookManager.unregister();
 
+        if (userManager != null) {
+            userManager.cancelAutoSave();
+            userManager.cancelMultiplierRefresh();
+            userManager.cancelLeaderboardRefresh();
+        }
+
         (listeners = new Listeners(this)).register();
         cache = new Cache(this);
 
@@ -119,6 +125,8 @@ public final class CyberLevels extends JavaPlugin {
 
         (hookManager = new HookManager(this)).register();
         userManager.startAutoSave();
+        userManager.startMultiplierRefresh();
+        userManager.startLeaderboardRefresh();
 
         levelSystem.getLeaderboard().update();
     }
@@ -132,6 +140,8 @@ public final class CyberLevels extends JavaPlugin {
 
         userManager.saveOnlinePlayers(true);
         userManager.cancelAutoSave();
+        userManager.cancelMultiplierRefresh();
+        userManager.cancelLeaderboardRefresh();
 
         if (database != null) database.disconnect();
 
@@ -147,7 +157,12 @@ public final class CyberLevels extends JavaPlugin {
     }
 
     public void logger(String... message) {
-        core.logger(message);
+        if (core != null) {
+            core.logger(message);
+            return;
+        }
+
+        for (String line : message) getLogger().info(line);
     }
 
     public boolean isEnabled(String plugin) {
@@ -136,6 +136,7 @@ class DatabaseFactory {
         void ensureTargetSchema(Connection conn) throws SQLException {
             if (!tableExists(conn, getTable())) {
                 createTargetTable(conn);
+                createRankIndex(conn);
                 return;
             }
 
@@ -149,6 +150,63 @@ class DatabaseFactory {
                 needMigration = true;
 
             if (needMigration) migrateTableToCanonical(conn);
+            else if (!cols.contains("EXP_NUM")) {
+                main.logger("&e" + type + ": adding the EXP_NUM column to '" + getTable() + "'...");
+                addRankColumn(conn);
+            }
+
+            createRankIndex(conn);
+        }
+
+        String rankIndex() {
+            return getTable() + "_rank";
+        }
+
+        void createRankIndex(Connection conn) throws SQLException {
+            String sql = "CREATE INDEX IF NOT EXISTS " + qTab(rankIndex()) + " ON " + qTab(getTable()) +
+                    " (" + qCol("LEVEL") + " DESC," + qCol("EXP_NUM") + " DESC)";
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate(sql);
+            }
+        }
+
+        // The textual EXP column keeps the exact amount, EXP_NUM only exists so the database can sort by it
+        void addRankColumn(Connection conn) throws SQLException {
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("ALTER TABLE " + qTab(getTable()) + " ADD COLUMN " + qCol("EXP_NUM") + " DOUBLE PRECISION");
+            }
+
+            String selectSQL = "SELECT " + qCol("UUID") + "," + qCol("EXP") + " FROM " + qTab(getTable());
+            String updateSQL = "UPDATE " + qTab(getTable()) + " SET " + qCol("EXP_NUM") + "=? WHERE " + qCol("UUID") + "=?";
+
+            conn.setAutoCommit(false);
+            try (PreparedStatement select = conn.prepareStatement(selectSQL);
+                 PreparedStatement update = conn.prepareStatement(updateSQL);
+                 ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    update.setDouble(1, expNum(rs.getString(2)));
+                    update.setString(2, rs.getString(1));
+                    update.addBatch();
+                }
+
+                update.executeBatch();
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        static double expNum(String exp) {
+            if (exp == null) return 0.0;
+            try {
+                double value = Double.parseDouble(exp.trim());
+                return Double.isNaN(value) ? 0.0 : Math.max(-Double.MAX_VALUE, Math.min(value, Double.MAX_VALUE));
+            } catch (NumberFormatException e) {
+                return 0.0;
+            }
         }
 
         boolean tableExists(Connection conn, String table) throws SQLException {
@@ -214,15 +272,16 @@ class DatabaseFactory {
                 }
 
                 String insertSQL = "INSERT INTO " + qTab(table) + " (" +
-                        qCol("UUID") + "," + qCol("LEVEL") + "," + qCol("EXP") + "," + qCol("UPDATED_AT") +
-                        ") VALUES (?,?,?,?)";
+                        qCol("UUID") + "," + qCol("LEVEL") + "," + qCol("EXP") + "," + qCol("EXP_NUM") + "," + qCol("UPDATED_AT") +
+                        ") VALUES (?,?,?,?,?)";
 
                 try (PreparedStatement ins = conn.prepareStatement(insertSQL)) {
                     for (Row r : bestByUuid.values()) {
                         ins.setString(1, r.uuid.toString());
                         ins.setLong(2, r.level);
                         ins.setString(3, r.exp);
-                        ins.setLong(4, r.updatedAt);
+                        ins.setDouble(4, expNum(r.exp));
+                        ins.setLong(5, r.updatedAt);
                         ins.addBatch();
                     }
                     ins.executeBatch();
@@ -355,19 +414,20 @@ class DatabaseFactory {
 
             if (!defValues) {
                 levelStr = String.valueOf(user.getLevel());
-                expStr = String.valueOf(user.getExp()); // already string-ish
+                expStr = system.getOperator().serialize(user.getExp());
             }
 
             String sql = "INSERT INTO " + qTab(getTable()) + " (" +
-                    qCol("UUID") + "," + qCol("LEVEL") + "," + qCol("EXP") + "," + qCol("UPDATED_AT") +
-                    ") VALUES (?,?,?,?)";
+                    qCol("UUID") + "," + qCol("LEVEL") + "," + qCol("EXP") + "," + qCol("EXP_NUM") + "," + qCol("UPDATED_AT") +
+                    ") VALUES (?,?,?,?,?)";
 
             try (Connection connection = dataSource.getConnection();
                  PreparedStatement st = connection.prepareStatement(sql)) {
                 st.setString(1, user.getUuid().toString());
                 st.setLong(2, Long.parseLong(levelStr));
                 st.setString(3, expStr);
-                st.setLong(4, System.currentTimeMillis());
+                st.setDouble(4, expNum(expStr));
+                st.setLong(5, System.currentTimeMillis());
                 st.executeUpdate();
 
                 long now = System.currentTimeMillis();
@@ -392,7 +452,7 @@ class DatabaseFactory {
                         connection,
                         uuid,
                         user.getLevel(),
-                        String.valueOf(user.getExp()),
+                        system.getOperator().serialize(user.getExp()),
                         now
                 )) {
                     st.executeUpdate();
@@ -485,6 +545,58 @@ class DatabaseFactory {
             }
             return uuids;
         }
+
+        /**
+         * Reads the rows of the highest ranked users, the first one ranked highest.
+         */
+        List<Row> readTop(Connection conn, int limit) throws SQLException {
+            String sql = "SELECT " + qCol("UUID") + "," + qCol("LEVEL") + "," + qCol("EXP") + " FROM " + qTab(getTable()) +
+                    " ORDER BY " + qCol("LEVEL") + " DESC," + qCol("EXP_NUM") + " DESC LIMIT ?";
+
+            List<Row> rows = new ArrayList<>();
+            try (PreparedStatement st = conn.prepareStatement(sql)) {
+                st.setInt(1, limit);
+
+                try (ResultSet rs = st.executeQuery()) {
+                    while (rs.next()) {
+                        UUID uuid;
+                        try {
+                            uuid = UUID.fromString(rs.getString("UUID"));
+                        } catch (Exception e) {
+                            continue;
+                        }
+
+                        String exp = rs.getString("EXP");
+                        rows.add(new Row(uuid, rs.getLong("LEVEL"), exp == null ? "0" : exp, 0L, 0L));
+                    }
+                }
+            }
+            return rows;
+        }
+
+        // Runs off the main thread, so the users are built with their values instead of being changed
+        @NotNull
+        public List<LevelUser<N>> getTopUsers(int limit) {
+            List<LevelUser<N>> users = new ArrayList<>();
+            if (!isConnected() || limit < 1) return users;
+
+            try (Connection connection = dataSource.getConnection()) {
+                for (Row row : readTop(connection, limit)) {
+                    N exp;
+                    try {
+                        exp = system.getOperator().valueOf(row.exp.trim());
+                    } catch (NumberFormatException e) {
+                        exp = system.getOperator().zero();
+                    }
+
+                    users.add(system.createOffline(row.uuid, row.level, exp));
+                }
+            } catch (SQLException e) {
+                main.logger("&cFailed to fetch the leaderboard from " + type + ".");
+                e.printStackTrace();
+            }
+            return users;
+        }
     }
 
     // --------------- MySQL / MariaDB --------------- //
@@ -538,17 +650,19 @@ class DatabaseFactory {
         PreparedStatement prepareUpsert(Connection c, UUID uuid, long level, String exp, long updatedAt) throws SQLException {
             String sql =
                     "INSERT INTO " + qTab(getTable()) + " (" +
-                            qCol("UUID") + "," + qCol("LEVEL") + "," + qCol("EXP") + "," + qCol("UPDATED_AT") + ") " +
-                            "VALUES (?,?,?,?) " +
+                            qCol("UUID") + "," + qCol("LEVEL") + "," + qCol("EXP") + "," + qCol("EXP_NUM") + "," + qCol("UPDATED_AT") + ") " +
+                            "VALUES (?,?,?,?,?) " +
                             "ON DUPLICATE KEY UPDATE " +
                             qCol("LEVEL") + " = IF(VALUES(" + qCol("UPDATED_AT") + ") >= " + qCol("UPDATED_AT") + ", VALUES(" + qCol("LEVEL") + ")," + qCol("LEVEL") + ")," +
                             qCol("EXP") + " = IF(VALUES(" + qCol("UPDATED_AT") + ") >= " + qCol("UPDATED_AT") + ", VALUES(" + qCol("EXP") + ")," + qCol("EXP") + ")," +
+                            qCol("EXP_NUM") + " = IF(VALUES(" + qCol("UPDATED_AT") + ") >= " + qCol("UPDATED_AT") + ", VALUES(" + qCol("EXP_NUM") + ")," + qCol("EXP_NUM") + ")," +
                             qCol("UPDATED_AT") + " = GREATEST(" + qCol("UPDATED_AT") + ", VALUES(" + qCol("UPDATED_AT") + "))";
             PreparedStatement ps = c.prepareStatement(sql);
             ps.setString(1, uuid.toString());
             ps.setLong(2, level);
             ps.setString(3, exp);
-            ps.setLong(4, updatedAt);
+            ps.setDouble(4, expNum(exp));
+            ps.setLong(5, updatedAt);
             return ps;
         }
 
@@ -616,12 +730,31 @@ class DatabaseFactory {
             return false;
         }
 
+        // MySQL has no CREATE INDEX IF NOT EXISTS
+        @Override
+        void createRankIndex(Connection conn) throws SQLException {
+            String sql = "SELECT 1 FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, getTable());
+                ps.setString(2, rankIndex());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) return;
+                }
+            }
+
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("CREATE INDEX " + qTab(rankIndex()) + " ON " + qTab(getTable()) +
+                        " (" + qCol("LEVEL") + " DESC," + qCol("EXP_NUM") + " DESC)");
+            }
+        }
+
         @Override
         void createTargetTable(Connection conn) throws SQLException {
             String sql = "CREATE TABLE IF NOT EXISTS " + qTab(getTable()) + " (" +
                     qCol("UUID") + " VARCHAR(36) NOT NULL," +
                     qCol("LEVEL") + " BIGINT," +
                     qCol("EXP") + " TEXT," +
+                    qCol("EXP_NUM") + " DOUBLE PRECISION," +
                     qCol("UPDATED_AT") + " BIGINT NOT NULL DEFAULT 0," +
                     "PRIMARY KEY (" + qCol("UUID") + ")) " +
                     "CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
@@ -652,10 +785,17 @@ class DatabaseFactory {
         private final String filePath, table;
 
         SQLite(CyberLevels main, BaseSystem<N> system) {
+            this(main, system, main.cache().config().database());
+        }
+
+        private SQLite(CyberLevels main, BaseSystem<N> system, Config.Database db) {
+            this(main, system, db.getSqliteFile(), db.getTable());
+        }
+
+        SQLite(CyberLevels main, BaseSystem<N> system, String filePath, String table) {
             super(main, system, "SQLite");
-            Config.Database db = main.cache().config().database();
-            this.filePath = db.getSqliteFile();
-            this.table = db.getTable();
+            this.filePath = filePath;
+            this.table = table;
         }
 
         @Override String getTable() { return table; }
@@ -683,17 +823,19 @@ class DatabaseFactory {
         PreparedStatement prepareUpsert(Connection c, UUID uuid, long level, String exp, long updatedAt) throws SQLException {
             String sql =
                     "INSERT INTO " + qTab(getTable()) + " (" +
-                            qCol("UUID") + "," + qCol("LEVEL") + "," + qCol("EXP") + "," + qCol("UPDATED_AT") + ") " +
-                            "VALUES (?,?,?,?) " +
+                            qCol("UUID") + "," + qCol("LEVEL") + "," + qCol("EXP") + "," + qCol("EXP_NUM") + "," + qCol("UPDATED_AT") + ") " +
+                            "VALUES (?,?,?,?,?) " +
                             "ON CONFLICT(" + qCol("UUID") + ") DO UPDATE SET " +
                             qCol("LEVEL") + " = CASE WHEN excluded." + qCol("UPDATED_AT") + " >= " + qTab(getTable()) + "." + qCol("UPDATED_AT") + " THEN excluded." + qCol("LEVEL") + " ELSE " + qTab(getTable()) + "." + qCol("LEVEL") + " END," +
                             qCol("EXP") + " = CASE WHEN excluded." + qCol("UPDATED_AT") + " >= " + qTab(getTable()) + "." + qCol("UPDATED_AT") + " THEN excluded." + qCol("EXP") + " ELSE " + qTab(getTable()) + "." + qCol("EXP") + " END," +
+                            qCol("EXP_NUM") + " = CASE WHEN excluded." + qCol("UPDATED_AT") + " >= " + qTab(getTable()) + "." + qCol("UPDATED_AT") + " THEN excluded." + qCol("EXP_NUM") + " ELSE " + qTab(getTable()) + "." + qCol("EXP_NUM") + " END," +
                             qCol("UPDATED_AT") + " = MAX(" + qTab(getTable()) + "." + qCol("UPDATED_AT") + ", excluded." + qCol("UPDATED_AT") + ")";
             PreparedStatement ps = c.prepareStatement(sql);
             ps.setString(1, uuid.toString());
             ps.setLong(2, level);
             ps.setString(3, exp);
-            ps.setLong(4, updatedAt);
+            ps.setDouble(4, expNum(exp));
+            ps.setLong(5, updatedAt);
             return ps;
         }
 
@@ -759,6 +901,7 @@ class DatabaseFactory {
                     qCol("UUID") + " TEXT PRIMARY KEY," +
                     qCol("LEVEL") + " INTEGER," +
                     qCol("EXP") + " TEXT," +
+                    qCol("EXP_NUM") + " DOUBLE PRECISION," +
                     qCol("UPDATED_AT") + " INTEGER NOT NULL DEFAULT 0" +
                     ")";
             try (Statement st = conn.createStatement()) {
@@ -829,17 +972,19 @@ class DatabaseFactory {
         PreparedStatement prepareUpsert(Connection c, UUID uuid, long level, String exp, long updatedAt) throws SQLException {
             String sql =
                     "INSERT INTO " + qTab(getTable()) + " (" +
-                            qCol("UUID") + "," + qCol("LEVEL") + "," + qCol("EXP") + "," + qCol("UPDATED_AT") + ") " +
-                            "VALUES (?,?,?,?) " +
+                            qCol("UUID") + "," + qCol("LEVEL") + "," + qCol("EXP") + "," + qCol("EXP_NUM") + "," + qCol("UPDATED_AT") + ") " +
+                            "VALUES (?,?,?,?,?) " +
                             "ON CONFLICT (" + qCol("UUID") + ") DO UPDATE SET " +
                             qCol("LEVEL") + " = CASE WHEN EXCLUDED." + qCol("UPDATED_AT") + " >= " + qTab(getTable()) + "." + qCol("UPDATED_AT") + " THEN EXCLUDED." + qCol("LEVEL") + " ELSE " + qTab(getTable()) + "." + qCol("LEVEL") + " END," +
                             qCol("EXP") + " = CASE WHEN EXCLUDED." + qCol("UPDATED_AT") + " >= " + qTab(getTable()) + "." + qCol("UPDATED_AT") + " THEN EXCLUDED." + qCol("EXP") + " ELSE " + qTab(getTable()) + "." + qCol("EXP") + " END," +
+                            qCol("EXP_NUM") + " = CASE WHEN EXCLUDED." + qCol("UPDATED_AT") + " >= " + qTab(getTable()) + "." + qCol("UPDATED_AT") + " THEN EXCLUDED." + qCol("EXP_NUM") + " ELSE " + qTab(getTable()) + "." + qCol("EXP_NUM") + " END," +
                             qCol("UPDATED_AT") + " = GREATEST(" + qTab(getTable()) + "." + qCol("UPDATED_AT") + ", EXCLUDED." + qCol("UPDATED_AT") + ")";
             PreparedStatement ps = c.prepareStatement(sql);
             ps.setString(1, uuid.toString());
             ps.setLong(2, level);
             ps.setString(3, exp);
-            ps.setLong(4, updatedAt);
+            ps.setDouble(4, expNum(exp));
+            ps.setLong(5, updatedAt);
             return ps;
         }
 
@@ -914,6 +1059,7 @@ class DatabaseFactory {
                     qCol("UUID") + " VARCHAR(36) PRIMARY KEY," +
                     qCol("LEVEL") + " BIGINT," +
                     qCol("EXP") + " TEXT," +
+                    qCol("EXP_NUM") + " DOUBLE PRECISION," +
                     qCol("UPDATED_AT") + " BIGINT NOT NULL DEFAULT 0" +
                     ")";
             try (Statement st = conn.createStatement()) {
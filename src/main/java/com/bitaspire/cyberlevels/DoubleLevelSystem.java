@@ -2,14 +2,18 @@ package com.bitaspire.cyberlevels;
 
 import com.bitaspire.cyberlevels.user.UserManager;
 import com.bitaspire.libs.formula.DoubleExpressionBuilder;
-import com.bitaspire.cyberlevels.level.Formula;
+import com.bitaspire.libs.formula.DoubleExpressionEvaluator;
 import com.bitaspire.cyberlevels.level.Operator;
-import com.bitaspire.cyberlevels.user.LevelUser;
 import com.bitaspire.libs.formula.expression.ExpressionBuilder;
 import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
 
+import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @Getter
 final class DoubleLevelSystem extends BaseSystem<Double> {
@@ -31,6 +35,11 @@ final class DoubleLevelSystem extends BaseSystem<Double> {
                 return Double.parseDouble(value);
             }
 
+            @Override
+            public Double fromLong(long value) {
+                return (double) value;
+            }
+
             @Override
             public Double fromDouble(double value) {
                 return value;
@@ -112,29 +121,299 @@ final class DoubleLevelSystem extends BaseSystem<Double> {
         }
 
         @Override
-        Entry<Double> toEntry(LevelUser<Double> user) {
-            return new Entry<Double>(
-                    user.getUuid(), user.getName(),
-                    user.getLevel(), user.getExp(), user
-            ) {
-                @Override
-                public int compareTo(@NotNull Entry<Double> other) {
-                    if (getLevel() != other.getLevel())
-                        return Long.compare(other.getLevel(), getLevel());
+        int compareExp(Double exp, Double other) {
+            return Double.compare(other, exp);
+        }
+
+        @Override
+        boolean exactKeys() {
+            return true;
+        }
 
-                    return Double.compare(other.getExp(), getExp());
-                }
-            };
+        @Override
+        Double expOfKey(long key) {
+            return keyExp(key);
         }
     }
 
     @Override
-    Formula<Double> createFormula(String string) {
-        return new BaseFormula<Double>(operator, string) {
-            @NotNull
-            ExpressionBuilder<Double> builder() {
-                return new DoubleExpressionBuilder();
+    LevelCurve createCurve() {
+        return new DoubleCurve();
+    }
+
+    @Override
+    BaseFormula createFormula(String string) {
+        return new DoubleFormula(string);
+    }
+
+    @Override
+    Rounder<Double> createRounder(int digits) {
+        return new DoubleRounder(digits);
+    }
+
+    /**
+     * Primitive form of {@link #roundString(Number)}.
+     */
+    @NotNull
+    String roundString(double amount) {
+        return rounder != null ? ((DoubleRounder) rounder).format(amount) : Double.toString(amount);
+    }
+
+    @NotNull
+    @Override
+    public String formatNumber(Number value) {
+        return value instanceof Double && rounder != null ?
+                roundString(value.doubleValue()) :
+                super.formatNumber(value);
+    }
+
+    @Override
+    UserState<Double> createState(long level, Double exp, Double lastAmount, long lastTime) {
+        return new DoubleState(level, exp, lastAmount, lastTime);
+    }
+
+    static final class DoubleRounder extends Rounder<Double> {
+
+        /**
+         * Below this magnitude, a scaled value keeps at least two bits of fraction, so a product
+         * that missed an exact decimal can always be told apart from the next one.
+         */
+        private static final double EXACT_LIMIT = 1e15;
+        private static final int MAX_DIGITS = 15;
+
+        private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(StringBuilder::new);
+
+        private final double factor;
+        private final long power;
+
+        DoubleRounder(int digits) {
+            super(digits);
+
+            long power = 1;
+            for (int i = 0; i < Math.min(this.digits, MAX_DIGITS); i++) power *= 10;
+
+            this.power = power;
+            factor = power;
+        }
+
+        /**
+         * Rounds up the value multiplied by 10^digits, or returns NaN when that product is too
+         * large to be rounded exactly with doubles.
+         */
+        private double ceilScaled(double value) {
+            if (digits > MAX_DIGITS) return Double.NaN;
+
+            double scaled = value * factor;
+            if (!(Math.abs(scaled) < EXACT_LIMIT)) return Double.NaN;
+
+            double up = Math.ceil(scaled);
+
+            // The product can land just above an exact decimal: 1.1 * 100 = 110.00000000000001
+            if ((up - 1) / factor == value) return up - 1;
+
+            // ...or exactly on a decimal that is still below the value
+            return up / factor < value ? up + 1 : up;
+        }
+
+        private BigDecimal exact(double value) {
+            return BigDecimal.valueOf(value).setScale(digits, RoundingMode.CEILING);
+        }
+
+        double round(double value) {
+            double scaled = ceilScaled(value);
+            if (scaled == scaled) return scaled / factor;
+
+            return Double.isFinite(value) ? exact(value).doubleValue() : value;
+        }
+
+        @NotNull
+        String format(double value) {
+            double scaled = ceilScaled(value);
+            if (scaled != scaled)
+                return Double.isFinite(value) ? exact(value).toPlainString() : Double.toString(value);
+
+            long unscaled = (long) scaled;
+
+            StringBuilder builder = BUILDER.get();
+            builder.setLength(0);
+
+            if (unscaled < 0) builder.append('-');
+            unscaled = Math.abs(unscaled);
+
+            builder.append(unscaled / power);
+            if (digits > 0) {
+                long fraction = unscaled % power;
+
+                builder.append('.');
+                for (long p = power / 10; p > 1 && p > fraction; p /= 10)
+                    builder.append('0');
+                builder.append(fraction);
             }
-        };
+
+            return builder.toString();
+        }
+
+        @NotNull
+        @Override
+        Double round(@NotNull Double value) {
+            return round(value.doubleValue());
+        }
+
+        @NotNull
+        @Override
+        String format(@NotNull Double value) {
+            return format(value.doubleValue());
+        }
+    }
+
+    class DoubleCurve extends LevelCurve {
+
+        private final long empty = Double.doubleToRawLongBits(Double.NaN);
+
+        private final AtomicReferenceArray<AtomicLongArray> values = new AtomicReferenceArray<>(size / BLOCK + 1);
+        private final double[][] sums = new double[(size + 1) / BLOCK + 1][];
+
+        @Override
+        Double load(int index) {
+            AtomicLongArray block = values.get(index / BLOCK);
+            if (block == null) return null;
+
+            double value = Double.longBitsToDouble(block.get(index % BLOCK));
+            return Double.isNaN(value) ? null : value;
+        }
+
+        @Override
+        void store(int index, Double value) {
+            AtomicLongArray block = values.get(index / BLOCK);
+            if (block == null) {
+                long[] bits = new long[BLOCK];
+                Arrays.fill(bits, empty);
+
+                if (!values.compareAndSet(index / BLOCK, null, block = new AtomicLongArray(bits)))
+                    block = values.get(index / BLOCK);
+            }
+
+            block.set(index % BLOCK, Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        Double loadSum(int index) {
+            return sums[index / BLOCK][index % BLOCK];
+        }
+
+        @Override
+        void storeSum(int index, Double value) {
+            double[] block = sums[index / BLOCK];
+            if (block == null) sums[index / BLOCK] = block = new double[BLOCK];
+            block[index % BLOCK] = value;
+        }
+
+        @Override
+        boolean accepts(Double value) {
+            return value >= 0 && !Double.isInfinite(value);
+        }
+    }
+
+    class DoubleFormula extends BaseFormula {
+
+        private final DoubleExpressionEvaluator evaluator =
+                DoubleExpressionEvaluator.compile(expression(), FORMULA_VARIABLES);
+
+        private final ThreadLocal<double[]> values =
+                ThreadLocal.withInitial(() -> new double[FORMULA_VARIABLES.length]);
+
+        DoubleFormula(String asString) {
+            super(asString);
+        }
+
+        @NotNull
+        ExpressionBuilder<Double> builder() {
+            return new DoubleExpressionBuilder();
+        }
+
+        @Override
+        Double compute(long level, Double exp, UUID uuid) {
+            if (evaluator == null) return super.compute(level, exp, uuid);
+
+            double[] values = this.values.get();
+            values(values, level, exp, uuid);
+
+            return evaluator.evaluate(values);
+        }
+
+        @Override
+        void fill(long fromLevel, double[] target, int offset, int length, UUID uuid) {
+            double[] values = new double[FORMULA_VARIABLES.length];
+            try {
+                if (evaluator != null) values(values, fromLevel, null, uuid);
+            } catch (Throwable t) {
+                values = null;
+            }
+
+            if (evaluator == null || values == null) {
+                super.fill(fromLevel, target, offset, length, uuid);
+                return;
+            }
+
+            double[] stack = new double[evaluator.getStackSize()];
+            for (int i = 0; i < length; i++) {
+                long level = fromLevel + i;
+                values[0] = level;
+                values[2] = level + 1;
+
+                try {
+                    target[offset + i] = evaluator.evaluate(values, stack);
+                } catch (Throwable t) {
+                    target[offset + i] = 0.0;
+                }
+            }
+        }
+    }
+
+    static final class DoubleState extends UserState<Double> {
+
+        private volatile long level;
+        private volatile double exp, lastAmount;
+        private volatile long lastTime;
+
+        DoubleState(long level, double exp, double lastAmount, long lastTime) {
+            this.level = level;
+            this.exp = exp;
+            this.lastAmount = lastAmount;
+            this.lastTime = lastTime;
+        }
+
+        @Override
+        void set(long level, Double exp, Double lastAmount, long lastTime) {
+            this.level = level;
+            this.exp = exp;
+            this.lastAmount = lastAmount;
+            this.lastTime = lastTime;
+        }
+
+        @Override
+        long level() {
+            return level;
+        }
+
+        @Override
+        Double exp() {
+            return exp;
+        }
+
+        @Override
+        double expValue() {
+            return exp;
+        }
+
+        @Override
+        Double lastAmount() {
+            return lastAmount;
+        }
+
+        @Override
+        long lastTime() {
+            return lastTime;
+        }
     }
 }
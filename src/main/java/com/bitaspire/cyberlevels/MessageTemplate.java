@@ -0,0 +1,143 @@
+package com.bitaspire.cyberlevels;
+
+import me.croabeast.beanslib.message.MessageSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of messages compiled once, so sending it only fills its placeholders.
+ *
+ * <p> When compiled, the {@code [actionbar]} prefix is normalized and every {@code {key}} placeholder
+ * becomes a slot. Rendering appends the static text and the slot values into a reused builder; colours
+ * are left to the sender, which translates the whole line once.
+ */
+public final class MessageTemplate {
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(StringBuilder::new);
+
+    private final List<String> slots = new ArrayList<>();
+    private final Line[] lines;
+
+    public MessageTemplate(List<String> messages) {
+        List<Line> lines = new ArrayList<>();
+
+        if (messages != null)
+            for (String message : messages)
+                if (message != null) lines.add(compile(message.replace("[actionbar]", "[action-bar]")));
+
+        this.lines = lines.toArray(new Line[0]);
+    }
+
+    private Line compile(String message) {
+        List<String> texts = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+
+        int start = 0, from = 0, open;
+        while ((open = message.indexOf('{', from)) >= 0) {
+            int close = findClose(message, open);
+
+            // A brace that opens no placeholder stays in the text
+            if (close < 0) {
+                from = open + 1;
+                continue;
+            }
+
+            String slot = message.substring(open, close + 1);
+            int index = slots.indexOf(slot);
+            if (index < 0) {
+                index = slots.size();
+                slots.add(slot);
+            }
+
+            texts.add(message.substring(start, open));
+            indexes.add(index);
+            start = from = close + 1;
+        }
+
+        texts.add(message.substring(start));
+        return new Line(texts.toArray(new String[0]), indexes.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static int findClose(String message, int open) {
+        for (int i = open + 1; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '}') return i > open + 1 ? i : -1;
+            if (c == '{' || Character.isWhitespace(c)) return -1;
+        }
+        return -1;
+    }
+
+    private int slotOf(String key) {
+        boolean braced = key.startsWith("{");
+
+        for (int i = 0; i < slots.size(); i++) {
+            String slot = slots.get(i);
+            if (braced ?
+                    slot.equalsIgnoreCase(key) :
+                    slot.length() == key.length() + 2 && slot.regionMatches(true, 1, key, 0, key.length()))
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Fills the placeholders of every message. Placeholders without a value are left as they are.
+     *
+     * @param keys the placeholder keys, with or without braces
+     * @param values the values of the keys, in the same order
+     *
+     * @return the rendered messages
+     */
+    @NotNull
+    public List<String> render(String[] keys, Object... values) {
+        String[] filled = new String[slots.size()];
+
+        if (keys != null && values != null && keys.length == values.length)
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == null || values[i] == null) continue;
+
+                int slot = slotOf(keys[i]);
+                if (slot >= 0) filled[slot] = values[i].toString();
+            }
+
+        List<String> rendered = new ArrayList<>(lines.length);
+        StringBuilder builder = BUILDER.get();
+
+        for (Line line : lines) {
+            builder.setLength(0);
+            builder.append(line.texts[0]);
+
+            for (int i = 0; i < line.slots.length; i++) {
+                String value = filled[line.slots[i]];
+                builder.append(value != null ? value : slots.get(line.slots[i])).append(line.texts[i + 1]);
+            }
+
+            rendered.add(builder.toString());
+        }
+
+        return rendered;
+    }
+
+    public boolean send(Player player, String[] keys, Object... values) {
+        MessageSender sender = new MessageSender().setLogger(false).setCaseSensitive(false);
+        sender.setTargets(player);
+        sender.setParser(player);
+
+        return sender.send(render(keys, values));
+    }
+
+    private static final class Line {
+
+        private final String[] texts;
+        private final int[] slots;
+
+        private Line(String[] texts, int[] slots) {
+            this.texts = texts;
+            this.slots = slots;
+        }
+    }
+}
@@ -31,7 +31,7 @@ final class UserManagerImpl<N extends Number> implements UserManager<N> {
     private final BaseSystem<N> system;
     private final Map<UUID, LevelUser<N>> users = new ConcurrentHashMap<>();
 
-    BukkitTask autoSaveTask = null;
+    BukkitTask autoSaveTask = null, multiplierTask = null, leaderboardTask = null;
     @Getter
     private Database<N> database = null;
 
@@ -110,6 +110,17 @@ final class UserManagerImpl<N extends Number> implements UserManager<N> {
 
     @Override
     public LevelUser<N> getUser(String name) {
+        LevelUser<N> loaded = getLoadedUser(name);
+        if (loaded != null || !system.isStorageLeaderboard()) return loaded;
+
+        // Offline players are not loaded on startup when the leaderboard is read from the database
+        for (OfflinePlayer player : Bukkit.getOfflinePlayers())
+            if (name.equalsIgnoreCase(player.getName())) return getUser(player.getUniqueId());
+
+        return null;
+    }
+
+    private LevelUser<N> getLoadedUser(String name) {
         for (LevelUser<N> user : users.values())
             try {
                 String n = Objects.requireNonNull(user.getName());
@@ -182,7 +193,7 @@ final class UserManagerImpl<N extends Number> implements UserManager<N> {
 
         try (BufferedWriter writer = Files.newBufferedWriter(file)) {
             writer.write(user.getLevel() + "\n");
-            writer.write(user.getExp() + "\n");
+            writer.write(system.getOperator().serialize(user.getExp()) + "\n");
             long claimed = getRewardLevel(user);
             writer.write(claimed + "\n");
         } catch (Exception e) {
@@ -203,8 +214,10 @@ final class UserManagerImpl<N extends Number> implements UserManager<N> {
             newUser.setLevel(user.getLevel(), false);
             newUser.setExp(user.getExp() + "", true, false, false);
             setRewardLevel(newUser, getRewardLevel(user));
+            newUser.refreshMultiplier();
 
             users.put(uuid, newUser);
+            system.trackUser(newUser);
             return;
         }
 
@@ -247,7 +260,10 @@ final class UserManagerImpl<N extends Number> implements UserManager<N> {
         if (StringUtils.isNotBlank(migrationMessage))
             main.logger("Migrated " + (player != null ? player.getName() : uuid) + migrationMessage);
 
+        if (player != null) user.refreshMultiplier();
+
         users.put(uuid, user);
+        system.trackUser(user);
         system.updateLeaderboard();
     }
 
@@ -279,9 +295,11 @@ final class UserManagerImpl<N extends Number> implements UserManager<N> {
             setRewardLevel(offline, getRewardLevel(user));
 
             users.put(uuid, offline);
+            system.trackUser(offline);
         }
         catch (Exception e) {
             users.remove(uuid);
+            system.untrackUser(uuid);
             main.logger("&cNot able to convert to OfflineUser for: " + user.getName() + ". Deleting cache...");
             e.printStackTrace();
         }
@@ -299,6 +317,7 @@ final class UserManagerImpl<N extends Number> implements UserManager<N> {
     @Override
     public void removeUser(UUID uuid) {
         users.remove(uuid);
+        system.untrackUser(uuid);
 
         if (database != null) {
             database.removeUser(uuid);
@@ -312,7 +331,7 @@ final class UserManagerImpl<N extends Number> implements UserManager<N> {
     }
 
     void loadOfflinePlayers() {
-        if (Bukkit.getOfflinePlayers().length < 1) return;
+        if (system.isStorageLeaderboard() || Bukkit.getOfflinePlayers().length < 1) return;
 
         long l = System.currentTimeMillis();
         main.logger("&dLoading data for offline players...");
@@ -388,4 +407,48 @@ final class UserManagerImpl<N extends Number> implements UserManager<N> {
         autoSaveTask.cancel();
         autoSaveTask = null;
     }
+
+    @Override
+    public void startMultiplierRefresh() {
+        Config config = cache.config();
+        if (!config.isMultiplierEvents() && !config.isMultiplierCommands()) return;
+
+        long interval = 20L * config.getMultiplierRefreshInterval();
+        if (interval <= 0) return;
+
+        cancelMultiplierRefresh();
+        multiplierTask = Bukkit.getScheduler().runTaskTimer(main, () -> {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                LevelUser<N> user = users.get(player.getUniqueId());
+                if (user != null) user.refreshMultiplier();
+            }
+        }, interval, interval);
+    }
+
+    @Override
+    public void cancelMultiplierRefresh() {
+        if (multiplierTask == null) return;
+        multiplierTask.cancel();
+        multiplierTask = null;
+    }
+
+    @Override
+    public void startLeaderboardRefresh() {
+        if (!system.isStorageLeaderboard()) return;
+
+        long interval = 20L * cache.config().getLeaderboardStorageRefresh();
+        if (interval <= 0) return;
+
+        cancelLeaderboardRefresh();
+        leaderboardTask = Bukkit.getScheduler().runTaskTimer(main, () -> {
+            if (!system.getLeaderboard().isUpdating()) system.getLeaderboard().update();
+        }, interval, interval);
+    }
+
+    @Override
+    public void cancelLeaderboardRefresh() {
+        if (leaderboardTask == null) return;
+        leaderboardTask.cancel();
+        leaderboardTask = null;
+    }
 }
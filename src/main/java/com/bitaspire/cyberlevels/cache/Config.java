@@ -16,17 +16,30 @@ public class Config {
     @Accessors(fluent = true)
     private boolean useBigDecimalSystem = false;
 
+    private int bigDecimalScale = 10;
+    private int bigDecimalPrecision = 34;
+
     private int roundingDigits = 2;
     private boolean roundingEnabled = true;
     @Accessors(fluent = true)
     private boolean roundEarnExp = true;
 
     private boolean expIntegerOnly = false;
+    @Accessors(fluent = true)
+    private boolean coalesceEarnExp = false;
+
+    private int formulaCacheTtl = 1000;
 
     private boolean leaderboardEnabled = true;
     @Accessors(fluent = true)
     private boolean syncLeaderboardOnAutoSave = true,
-            leaderboardInstantUpdate = false;
+            leaderboardInstantUpdate = false,
+            leaderboardIndex = true,
+            leaderboardParallelRebuild = false,
+            leaderboardStorage = false;
+    private int leaderboardRefreshInterval = 1000;
+    private int leaderboardStorageRefresh = 60;
+    private double leaderboardLowTps = 18.0;
 
     private boolean autoSaveEnabled = true;
     private int autoSaveInterval = 300;
@@ -38,6 +51,7 @@ public class Config {
 
     private boolean multiplierCommands = false;
     private boolean multiplierEvents = true;
+    private int multiplierRefreshInterval = 60;
 
     @Accessors(fluent = true)
     private boolean autoUpdateConfig = true,
@@ -52,15 +66,27 @@ public class Config {
             database = new Database((file = new CLVFile(main, "config")).getSection("config.mysql"));
             useBigDecimalSystem = file.get("config.use-big-decimal-system", false);
 
+            bigDecimalScale = file.get("config.big-decimal.scale", bigDecimalScale);
+            bigDecimalPrecision = file.get("config.big-decimal.precision", bigDecimalPrecision);
+
             roundingEnabled = file.get("config.round-evaluation.enabled", true);
             roundEarnExp = file.get("config.round-evaluation.round-earn-exp", true);
             roundingDigits = file.get("config.round-evaluation.digits", roundingDigits);
 
             expIntegerOnly = file.get("config.earn-exp.integer-only", false);
+            coalesceEarnExp = file.get("config.earn-exp.coalesce-per-tick", false);
+
+            formulaCacheTtl = file.get("config.formula-cache.ttl", formulaCacheTtl);
 
             leaderboardEnabled = file.get("config.leaderboard.enabled", true);
             syncLeaderboardOnAutoSave = file.get("config.leaderboard.sync-on-auto-save", true);
             leaderboardInstantUpdate = file.get("config.leaderboard.instant-update", false);
+            leaderboardIndex = file.get("config.leaderboard.index", true);
+            leaderboardParallelRebuild = file.get("config.leaderboard.parallel-rebuild", false);
+            leaderboardRefreshInterval = file.get("config.leaderboard.refresh-interval", leaderboardRefreshInterval);
+            leaderboardLowTps = file.get("config.leaderboard.low-tps", leaderboardLowTps);
+            leaderboardStorage = file.get("config.leaderboard.storage", false);
+            leaderboardStorageRefresh = file.get("config.leaderboard.storage-refresh", leaderboardStorageRefresh);
 
             addLevelRewards = file.get("config.add-level-reward", false);
             preventDuplicateRewards = file.get("config.prevent-duplicate-rewards", false);
@@ -71,6 +97,7 @@ public class Config {
 
             multiplierCommands = file.get("config.multiplier.commands", false);
             multiplierEvents = file.get("config.multiplier.events", true);
+            multiplierRefreshInterval = file.get("config.multipliers.refresh-interval", multiplierRefreshInterval);
 
             autoUpdateConfig = file.get("config.auto-update.config", true);
             autoUpdateLang = file.get("config.auto-update.lang", true);
@@ -44,11 +44,12 @@ public class EarnExp {
 
     private final CyberLevels main;
     private final Map<String, SourceImpl> events = new HashMap<>();
+    private final ExpAccumulator accumulator;
 
     private CLVFile file;
 
     EarnExp(CyberLevels main) {
-        this.main = main;
+        accumulator = new ExpAccumulator(this.main = main);
 
         try {
             long start = System.currentTimeMillis();
@@ -277,14 +278,7 @@ public class EarnExp {
                                 counter += s.getPartialMatchesExp(data);
                         }
 
-                        LevelUser<?> user = main.userManager().getUser(player);
-
-                        if (counter > 0) {
-                            user.addExp(counter + "", main.cache().config().isMultiplierEvents());
-                            return;
-                        }
-
-                        if (counter < 0) user.removeExp(Math.abs(counter) + "");
+                        grantExp(player, s, counter);
                     }
                 }).runTaskLater(main, 1L);
             }
@@ -308,14 +302,7 @@ public class EarnExp {
                 if (s.isEnabled() || s.useSpecifics())
                     counter += s.getPartialMatchesExp(data.toString());
 
-                LevelUser<?> user = main.userManager().getUser(event.getEnchanter());
-
-                if (counter > 0) {
-                    user.addExp(counter + "", main.cache().config().isMultiplierEvents());
-                    return;
-                }
-
-                if (counter < 0) user.removeExp(Math.abs(counter) + "");
+                grantExp(event.getEnchanter(), s, counter);
             }
         });
 
@@ -360,16 +347,7 @@ public class EarnExp {
                     counter += s.getPartialMatchesExp(item);
 
                 final double finalCounter = counter;
-                Bukkit.getScheduler().runTask(main, () -> {
-                    LevelUser<?> user = main.userManager().getUser(player);
-
-                    if (finalCounter > 0) {
-                        user.addExp(finalCounter + "", main.cache().config().isMultiplierEvents());
-                        return;
-                    }
-
-                    if (finalCounter < 0) user.removeExp(Math.abs(finalCounter) + "");
-                });
+                Bukkit.getScheduler().runTask(main, () -> grantExp(player, s, finalCounter));
             }
         });
 
@@ -442,15 +420,28 @@ public class EarnExp {
             if (source.isInList(value)) counter = source.getRange().getRandom();
         }
 
-        if (counter == 0) return;
+        grantExp(player, source, counter);
+    }
+
+    /**
+     * Gives exp earned from a source to a player, right away or at the start of the next tick
+     * if exp is coalesced. Must be called from the main thread.
+     */
+    public void grantExp(Player player, ExpSource source, double amount) {
+        if (amount == 0) return;
+
+        if (main.cache().config().coalesceEarnExp()) {
+            accumulator.add(player, source, amount);
+            return;
+        }
 
         LevelUser<?> user = main.userManager().getUser(player);
-        if (counter > 0) {
-            user.addExp(counter + "", main.cache().config().isMultiplierEvents());
+        if (amount > 0) {
+            user.addExp(amount, main.cache().config().isMultiplierEvents());
             return;
         }
 
-        user.removeExp(Math.abs(counter) + "");
+        user.removeExp(Math.abs(amount));
     }
 
     void sendPermissionExp(Player player, ExpSource source) {
@@ -470,15 +461,14 @@ public class EarnExp {
             if (source.hasPermission(player)) counter = source.getRange().getRandom();
         }
 
-        if (counter == 0) return;
-
-        LevelUser<?> user = main.userManager().getUser(player);
-        if (counter > 0) {
-            user.addExp(counter + "", main.cache().config().isMultiplierEvents());
-            return;
-        }
+        grantExp(player, source, counter);
+    }
 
-        user.removeExp(Math.abs(counter) + "");
+    /**
+     * Gives the exp a player earned this tick right away, before the player's data is saved.
+     */
+    public void flushExp(Player player) {
+        accumulator.flush(player.getUniqueId());
     }
 
     @NotNull
@@ -492,6 +482,7 @@ public class EarnExp {
 
     public void unregister() {
         events.values().forEach(e -> e.getRegistrable().unregister());
+        accumulator.flush();
     }
 
     @Getter
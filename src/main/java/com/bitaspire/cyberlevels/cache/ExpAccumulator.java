@@ -0,0 +1,81 @@
+package com.bitaspire.cyberlevels.cache;
+
+import com.bitaspire.cyberlevels.CyberLevels;
+import com.bitaspire.cyberlevels.level.ExpSource;
+import com.bitaspire.cyberlevels.user.LevelUser;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sums the exp each player earns from each source during a tick, and gives the totals in a task
+ * run at the start of the next tick: one gain and one loss per player at most, so one message
+ * each, and a single leaderboard refresh for the whole tick. Only used from the main thread.
+ */
+final class ExpAccumulator {
+
+    private final CyberLevels main;
+    private final Map<UUID, Map<ExpSource, double[]>> pending = new LinkedHashMap<>();
+
+    private BukkitTask task = null;
+
+    ExpAccumulator(CyberLevels main) {
+        this.main = main;
+    }
+
+    void add(Player player, ExpSource source, double amount) {
+        pending.computeIfAbsent(player.getUniqueId(), k -> new HashMap<>())
+                .computeIfAbsent(source, k -> new double[1])[0] += amount;
+
+        if (task == null) task = Bukkit.getScheduler().runTask(main, this::flush);
+    }
+
+    private boolean apply(UUID uuid, Map<ExpSource, double[]> sources) {
+        double gained = 0, lost = 0;
+
+        for (double[] total : sources.values()) {
+            if (total[0] > 0) gained += total[0];
+            else lost -= total[0];
+        }
+
+        LevelUser<?> user = main.userManager().getUser(uuid);
+        if (user == null) return false;
+
+        if (gained > 0) user.addExp(gained, main.cache().config().isMultiplierEvents(), false);
+        if (lost > 0) user.removeExp(lost, false);
+
+        return gained > 0 || lost > 0;
+    }
+
+    private void refreshLeaderboard() {
+        if (main.isEnabled() && main.cache().config().leaderboardInstantUpdate())
+            main.levelSystem().getLeaderboardRefresh().request();
+    }
+
+    void flush() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        boolean changed = false;
+        for (Map.Entry<UUID, Map<ExpSource, double[]>> entry : pending.entrySet())
+            changed |= apply(entry.getKey(), entry.getValue());
+
+        pending.clear();
+        if (changed) refreshLeaderboard();
+    }
+
+    /**
+     * Gives the pending exp of a single player right away.
+     */
+    void flush(UUID uuid) {
+        Map<ExpSource, double[]> sources = pending.remove(uuid);
+        if (sources != null && apply(uuid, sources)) refreshLeaderboard();
+    }
+}
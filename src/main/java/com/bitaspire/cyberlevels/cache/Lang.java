@@ -1,7 +1,7 @@
 package com.bitaspire.cyberlevels.cache;
 
 import com.bitaspire.cyberlevels.CyberLevels;
-import com.bitaspire.cyberlevels.Message;
+import com.bitaspire.cyberlevels.MessageTemplate;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.experimental.Accessors;
@@ -89,6 +89,13 @@ public class Lang {
     @Accessors(fluent = true)
     private LeaderboardKeys leaderboardKeys = new LeaderboardKeys();
 
+    @Getter(AccessLevel.NONE)
+    private final String[] progressBars;
+
+    // Keyed by identity, as every template belongs to one of the lists above
+    @Getter(AccessLevel.NONE)
+    private final Map<List<String>, MessageTemplate> templates = new IdentityHashMap<>();
+
     Lang(CyberLevels main) {
         this.main = main;
         try {
@@ -133,14 +140,54 @@ public class Lang {
             leaderboardKeys = new LeaderboardKeys(file.getSection("messages.leaderboard-placeholders"));
         }
         catch (IOException ignored) {}
+
+        int length = progressBar.length();
+        progressBars = new String[length + 1];
+
+        for (int i = 0; i <= length; i++)
+            progressBars[i] = progressCompleteColor + progressBar.substring(0, i) +
+                    progressIncompleteColor + progressBar.substring(i) + progressEndColor;
+
+        for (List<String> list : Arrays.asList(
+                noPermission, helpPlayer, helpAdmin, reloading, reloaded, autoSave,
+                addedExp, setExp, removedExp, addedLevels, setLevel, removedLevels,
+                playerNotFound, notNumber, purgePlayer, levelInfo,
+                gainedExp, lostExp, gainedLevels, lostLevels,
+                topHeader, topContent, topFooter
+        ))
+            templates.put(list, new MessageTemplate(list));
     }
 
     public void update() {
         if (file != null) file.update();
     }
 
+    /**
+     * Gets the progress bar with the given amount of completed characters, built when the file is loaded.
+     *
+     * @param completion the completed characters, clamped to the length of the bar
+     * @return the progress bar
+     */
+    public String getProgressBarAt(int completion) {
+        return progressBars[Math.max(0, Math.min(completion, progressBars.length - 1))];
+    }
+
+    /**
+     * Gets the template of a message list, compiled when the file is loaded. Lists that are not
+     * part of this file are compiled on each call.
+     *
+     * @param function the getter of the message list
+     * @return the template of the list
+     */
+    public MessageTemplate getTemplate(Function<Lang, List<String>> function) {
+        List<String> list = function != null ? function.apply(this) : null;
+
+        MessageTemplate template = list != null ? templates.get(list) : null;
+        return template != null ? template : new MessageTemplate(list);
+    }
+
     public boolean sendMessage(Player player, Function<Lang, List<String>> function, String[] keys, Object... values) {
-        return new Message().player(player).list(function).keys(keys).values(values).send();
+        return getTemplate(function).send(player, keys, values);
     }
 
     public boolean sendMessage(Player player, Function<Lang, List<String>> function, String key, Object value) {
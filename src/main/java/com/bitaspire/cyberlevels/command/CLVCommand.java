@@ -188,13 +188,13 @@ public class CLVCommand implements CommandExecutor {
 
         switch (action) {
             case ADD:
-                user.addExp(value + "", main.cache().config().isMultiplierCommands());
+                user.addExp(value, main.cache().config().isMultiplierCommands());
                 break;
             case SET:
                 user.setExp(value + "", allowMultiplier, true, true);
                 break;
             case REMOVE:
-                user.removeExp(value + "");
+                user.removeExp(value);
                 break;
         }
 
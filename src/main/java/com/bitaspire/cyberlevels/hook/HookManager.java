@@ -2,7 +2,6 @@ package com.bitaspire.cyberlevels.hook;
 
 import com.bitaspire.cyberlevels.CyberLevels;
 import com.bitaspire.cyberlevels.level.ExpSource;
-import com.bitaspire.cyberlevels.user.LevelUser;
 import net.zerotoil.dev.cybercore.addons.Metrics;
 import org.bukkit.entity.Player;
 
@@ -26,6 +25,12 @@ public class HookManager {
             main.logger("&7Loaded &ePlaceholderAPI&7 plugin hook in &a" + (System.currentTimeMillis() - l) + "ms&7.");
         }
 
+        if (main.isEnabled("LuckPerms")) {
+            final long l = System.currentTimeMillis();
+            hooks.add(new LuckPermsHook(main));
+            main.logger("&7Loaded &eLuckPerms&7 plugin hook in &a" + (System.currentTimeMillis() - l) + "ms&7.");
+        }
+
         // RivalHarvesterHoes and RivalPickaxes hooks disabled - requires external JAR files
         // Uncomment when you have the API JARs in libs/ folder
         /*
@@ -61,15 +66,7 @@ public class HookManager {
             if (source.isInList(item)) counter = source.getRange().getRandom();
         }
 
-        if (counter == 0) return;
-
-        LevelUser<?> user = main.userManager().getUser(player);
-        if (counter > 0) {
-            user.addExp(counter + "", main.cache().config().isMultiplierEvents());
-            return;
-        }
-
-        user.removeExp(Math.abs(counter) + "");
+        main.cache().earnExp().grantExp(player, source, counter);
     }
 
     public void register() {
@@ -0,0 +1,41 @@
+package com.bitaspire.cyberlevels.hook;
+
+import com.bitaspire.cyberlevels.CyberLevels;
+import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.event.EventSubscription;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import org.bukkit.Bukkit;
+
+import java.util.UUID;
+
+final class LuckPermsHook implements Hook {
+
+    private final CyberLevels main;
+    private EventSubscription<UserDataRecalculateEvent> subscription = null;
+
+    LuckPermsHook(CyberLevels main) {
+        this.main = main;
+    }
+
+    @Override
+    public void register() {
+        subscription = LuckPermsProvider.get().getEventBus().subscribe(main, UserDataRecalculateEvent.class, event -> {
+            UUID uuid = event.getUser().getUniqueId();
+            if (!main.isEnabled()) return;
+
+            // Recalculations may run async, permissions are read on the main thread
+            Bukkit.getScheduler().runTask(main, () -> {
+                if (Bukkit.getPlayer(uuid) != null)
+                    main.userManager().getUser(uuid).refreshMultiplier();
+            });
+        });
+    }
+
+    @Override
+    public void unregister() {
+        if (subscription == null) return;
+
+        subscription.close();
+        subscription = null;
+    }
+}
@@ -3,7 +3,10 @@ package com.bitaspire.cyberlevels.level;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collections;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.ObjLongConsumer;
 
 /**
  * Represents a mathematical formula used for calculating experience points or levels.
@@ -22,6 +25,17 @@ public interface Formula<N extends Number> {
     @NotNull
     String getAsString();
 
+    /**
+     * Retrieves the external placeholders used by the formula, like PlaceholderAPI ones.
+     * <p> By default, no external placeholder is reported.
+     *
+     * @return the placeholders with their delimiters, or an empty set if it only uses internal ones
+     */
+    @NotNull
+    default Set<String> getExternalPlaceholders() {
+        return Collections.emptySet();
+    }
+
     /**
      * Evaluates the formula based on the provided player's attributes.
      *
@@ -30,4 +44,43 @@ public interface Formula<N extends Number> {
      */
     @NotNull
     N evaluate(UUID uuid);
+
+    /**
+     * Evaluates the formula for a range of consecutive levels, storing the results as doubles.
+     *
+     * <p> Each level of the range is evaluated as the player's level. The formulas of the level
+     * systems implement it; by default, it is unsupported, as {@link #evaluate(UUID)} can only
+     * use the player's current level.
+     *
+     * @param fromLevel the first level of the range
+     * @param target the array receiving the results
+     * @param offset the index of the target where the result of the first level is stored
+     * @param length the amount of levels to evaluate
+     * @param uuid the UUID of the player whose attributes are used for evaluation
+     * @param parallel whether large ranges can be split across the common fork-join pool
+     *
+     * @throws IndexOutOfBoundsException if the range does not fit in the target
+     * @throws UnsupportedOperationException if the formula can't be evaluated for other levels
+     */
+    default void evaluate(long fromLevel, double[] target, int offset, int length, UUID uuid, boolean parallel) {
+        throw new UnsupportedOperationException("Formula can't be evaluated for a range of levels");
+    }
+
+    /**
+     * Evaluates the formula for every level between two levels, both inclusive, passing each
+     * result and its level to the consumer in ascending order.
+     *
+     * <p> Each level of the range is evaluated as the player's level. By default, it is
+     * unsupported, as {@link #evaluate(UUID)} can only use the player's current level.
+     *
+     * @param fromLevel the first level of the range
+     * @param toLevel the last level of the range
+     * @param uuid the UUID of the player whose attributes are used for evaluation
+     * @param consumer the consumer receiving each result along with its level
+     *
+     * @throws UnsupportedOperationException if the formula can't be evaluated for other levels
+     */
+    default void evaluate(long fromLevel, long toLevel, UUID uuid, ObjLongConsumer<? super N> consumer) {
+        throw new UnsupportedOperationException("Formula can't be evaluated for a range of levels");
+    }
 }
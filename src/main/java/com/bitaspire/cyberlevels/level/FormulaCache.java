@@ -0,0 +1,88 @@
+package com.bitaspire.cyberlevels.level;
+
+import java.util.UUID;
+
+/**
+ * Represents the cache holding the results of formulas that use external placeholders.
+ *
+ * <p> Resolving PlaceholderAPI placeholders can be slow, so the result of those formulas is kept
+ * for each player during a configurable time. A result is also discarded as soon as the level or
+ * the experience points it was computed with change.
+ */
+public interface FormulaCache {
+
+    /**
+     * A cache that keeps no result, so every formula is evaluated on each call.
+     */
+    FormulaCache NONE = new FormulaCache() {
+        @Override
+        public long getTtl() {
+            return 0;
+        }
+
+        @Override
+        public long getHits() {
+            return 0;
+        }
+
+        @Override
+        public long getMisses() {
+            return 0;
+        }
+
+        @Override
+        public int getSize() {
+            return 0;
+        }
+
+        @Override
+        public void invalidate(UUID uuid) {}
+
+        @Override
+        public void invalidate(Formula<?> formula) {}
+
+        @Override
+        public void invalidateAll() {}
+    };
+
+    /**
+     * Gets how long a result is kept before evaluating the formula again.
+     * @return the time to live in milliseconds, or 0 if the cache is disabled
+     */
+    long getTtl();
+
+    /**
+     * Gets the amount of evaluations answered by a cached result.
+     * @return the cache hits
+     */
+    long getHits();
+
+    /**
+     * Gets the amount of evaluations that had to resolve the formula placeholders.
+     * @return the cache misses
+     */
+    long getMisses();
+
+    /**
+     * Gets the amount of results currently stored, including expired ones not yet discarded.
+     * @return the amount of cached results
+     */
+    int getSize();
+
+    /**
+     * Discards every cached result of the specified player.
+     * @param uuid the UUID of the player
+     */
+    void invalidate(UUID uuid);
+
+    /**
+     * Discards every cached result of the specified formula.
+     * @param formula the formula
+     */
+    void invalidate(Formula<?> formula);
+
+    /**
+     * Discards every cached result.
+     */
+    void invalidateAll();
+}
@@ -18,6 +18,9 @@ public interface Leaderboard<N extends Number> {
 
     /**
      * Checks if the leaderboard is currently updating.
+     *
+     * <p> While it updates, the previous ranking is still returned by the other methods.
+     *
      * @return true if the leaderboard is updating, false otherwise
      */
     boolean isUpdating();
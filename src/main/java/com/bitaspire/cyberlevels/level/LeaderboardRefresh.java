@@ -0,0 +1,108 @@
+package com.bitaspire.cyberlevels.level;
+
+/**
+ * Represents the scheduler refreshing the leaderboard after levels or experience points change.
+ *
+ * <p> Changes only mark the leaderboard as outdated. A single refresh covers every change made
+ * during the minimum interval, and refreshes are spaced further apart while the server TPS is
+ * below the configured threshold.
+ */
+public interface LeaderboardRefresh {
+
+    /**
+     * Gets the minimum time between two refreshes.
+     * @return the interval in milliseconds
+     */
+    long getInterval();
+
+    /**
+     * Gets the TPS measured by the last scheduled refresh.
+     * @return the measured TPS, at most 20
+     */
+    double getTps();
+
+    /**
+     * Gets the amount of refreshes done.
+     * @return the refreshes
+     */
+    long getRefreshes();
+
+    /**
+     * Gets the amount of changes that did not cause a refresh of their own, as one was already pending.
+     * @return the skipped refreshes
+     */
+    long getSkipped();
+
+    /**
+     * Gets the amount of times a pending refresh was postponed because of a low TPS.
+     * @return the deferred refreshes
+     */
+    long getDeferred();
+
+    /**
+     * Gets the time between the first change covered by the last refresh and that refresh.
+     * @return the latency in milliseconds
+     */
+    long getLastLatency();
+
+    /**
+     * Gets the average time between the first change covered by a refresh and the refresh.
+     * @return the average latency in milliseconds
+     */
+    double getAverageLatency();
+
+    /**
+     * Marks the leaderboard as outdated, scheduling a refresh if none is pending.
+     */
+    void request();
+
+    /**
+     * Creates a scheduler that updates the leaderboard on every request, without keeping statistics.
+     *
+     * @param leaderboard the leaderboard to update
+     * @return the scheduler
+     */
+    static LeaderboardRefresh immediate(Leaderboard<?> leaderboard) {
+        return new LeaderboardRefresh() {
+            @Override
+            public long getInterval() {
+                return 0;
+            }
+
+            @Override
+            public double getTps() {
+                return 20;
+            }
+
+            @Override
+            public long getRefreshes() {
+                return 0;
+            }
+
+            @Override
+            public long getSkipped() {
+                return 0;
+            }
+
+            @Override
+            public long getDeferred() {
+                return 0;
+            }
+
+            @Override
+            public long getLastLatency() {
+                return 0;
+            }
+
+            @Override
+            public double getAverageLatency() {
+                return 0;
+            }
+
+            @Override
+            public void request() {
+                if (!leaderboard.isUpdating()) leaderboard.update();
+            }
+        };
+    }
+}
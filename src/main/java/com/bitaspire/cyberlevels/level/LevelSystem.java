@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.ObjLongConsumer;
 
 /**
  * Represents a level system with various configurations and functionalities.
@@ -58,9 +59,71 @@ public interface LevelSystem<N extends Number> {
      */
     Formula<N> getCustomFormula(long level);
 
+    /**
+     * Gets the cache holding the results of formulas that use external placeholders.
+     * By default, no result is cached.
+     *
+     * @return the formula cache
+     */
+    @NotNull
+    default FormulaCache getFormulaCache() {
+        return FormulaCache.NONE;
+    }
+
+    /**
+     * Gets the scheduler refreshing the leaderboard after levels or experience points change.
+     * By default, every request updates the leaderboard right away.
+     *
+     * @return the leaderboard refresh scheduler
+     */
+    @NotNull
+    default LeaderboardRefresh getLeaderboardRefresh() {
+        return LeaderboardRefresh.immediate(getLeaderboard());
+    }
+
     @NotNull
     N getRequiredExp(long level, UUID uuid);
 
+    /**
+     * Gets the required experience points of a range of consecutive levels, using the formula
+     * of each level, and stores them as doubles.
+     *
+     * @param fromLevel the first level of the range
+     * @param target the array receiving the required experience points
+     * @param offset the index of the target where the first level is stored
+     * @param length the amount of levels
+     * @param uuid the UUID of the player
+     * @param parallel whether large ranges can be split across the common fork-join pool
+     *
+     * @throws IndexOutOfBoundsException if the range does not fit in the target
+     */
+    default void getRequiredExp(long fromLevel, double[] target, int offset, int length, UUID uuid, boolean parallel) {
+        if (offset < 0 || length < 0 || offset > target.length - length)
+            throw new IndexOutOfBoundsException(
+                    "Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + target.length);
+
+        for (int i = 0; i < length; i++)
+            target[offset + i] = getRequiredExp(fromLevel + i, uuid).doubleValue();
+    }
+
+    /**
+     * Passes the required experience points of every level between two levels, both inclusive,
+     * to the consumer in ascending order, using the formula of each level.
+     *
+     * @param fromLevel the first level of the range
+     * @param toLevel the last level of the range
+     * @param uuid the UUID of the player
+     * @param consumer the consumer receiving the required experience points along with their level
+     */
+    default void forEachRequiredExp(long fromLevel, long toLevel, UUID uuid, ObjLongConsumer<? super N> consumer) {
+        if (fromLevel > toLevel) return;
+
+        for (long level = fromLevel; ; level++) {
+            consumer.accept(getRequiredExp(level, uuid), level);
+            if (level == toLevel) break;
+        }
+    }
+
     @NotNull
     List<Reward> getRewards(long level);
 
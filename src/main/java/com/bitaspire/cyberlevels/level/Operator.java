@@ -33,6 +33,16 @@ public interface Operator<N extends Number> {
      */
     N fromDouble(double value);
 
+    /**
+     * Converts a long value to the numeric type.
+     *
+     * @param value the long value
+     * @return the numeric value
+     */
+    default N fromLong(long value) {
+        return valueOf(String.valueOf(value));
+    }
+
     /**
      * Adds two numeric values.
      *
@@ -140,4 +150,25 @@ public interface Operator<N extends Number> {
      * @return the string representation of the numeric value
      */
     String toString(N value);
+
+    /**
+     * Brings a value to the form experience points are kept in, so repeated operations
+     * on stored values do not grow their precision over time.
+     *
+     * @param value the numeric value
+     * @return the normalized value, or the value itself if the type needs no normalization
+     */
+    default N normalize(N value) {
+        return value;
+    }
+
+    /**
+     * Converts the numeric value to the string representation used to persist it.
+     *
+     * @param value the numeric value
+     * @return the string representation of the numeric value, without redundant digits
+     */
+    default String serialize(N value) {
+        return toString(value);
+    }
 }
@@ -34,7 +34,9 @@ public class Listeners {
 
             @EventHandler
             private void onLeave(PlayerQuitEvent event) {
+                main.cache().earnExp().flushExp(event.getPlayer());
                 main.userManager().savePlayer(event.getPlayer(), true);
+                main.levelSystem().getFormulaCache().invalidate(event.getPlayer().getUniqueId());
             }
         };
 
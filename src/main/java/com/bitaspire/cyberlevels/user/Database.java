@@ -3,6 +3,9 @@ package com.bitaspire.cyberlevels.user;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -82,4 +85,28 @@ public interface Database<N extends Number> {
 
     @NotNull
     Set<UUID> getUuids();
+
+    /**
+     * Retrieves the users with the highest levels and experience points saved in the database,
+     * including the ones not loaded by the server.
+     *
+     * <p> By default, every saved user is read with {@link #getUser(UUID)} and sorted.
+     *
+     * @param limit the maximum amount of users to retrieve
+     * @return the users, the first one ranked highest
+     */
+    @NotNull
+    default List<LevelUser<N>> getTopUsers(int limit) {
+        List<LevelUser<N>> users = new ArrayList<>();
+        for (UUID uuid : getUuids()) {
+            LevelUser<N> user = getUser(uuid);
+            if (user != null) users.add(user);
+        }
+
+        users.sort(Comparator.<LevelUser<N>>comparingLong(LevelUser::getLevel)
+                .thenComparingDouble(user -> user.getExp().doubleValue())
+                .reversed());
+
+        return users.size() > limit ? new ArrayList<>(users.subList(0, Math.max(limit, 0))) : users;
+    }
 }
@@ -117,6 +117,30 @@ public interface LevelUser<N extends Number> extends Comparable<LevelUser<N>> {
      */
     void addExp(String amount, boolean multiply);
 
+    /**
+     * Adds experience points to the user, without converting them to a string first.
+     *
+     * <p> By default, the amount is passed to {@link #addExp(String, boolean)}, which always
+     * updates the leaderboard.
+     *
+     * @param amount the amount of experience points to add
+     * @param multiply whether to apply the user's multiplier to the added experience
+     * @param checkLeaderboard whether to update the leaderboard with the new experience
+     */
+    default void addExp(double amount, boolean multiply, boolean checkLeaderboard) {
+        addExp(String.valueOf(amount), multiply);
+    }
+
+    /**
+     * Adds experience points to the user, without converting them to a string first.
+     *
+     * @param amount the amount of experience points to add
+     * @param multiply whether to apply the user's multiplier to the added experience
+     */
+    default void addExp(double amount, boolean multiply) {
+        addExp(amount, multiply, true);
+    }
+
     /**
      * Sets the user's experience points to a specific value.
      *
@@ -171,6 +195,27 @@ public interface LevelUser<N extends Number> extends Comparable<LevelUser<N>> {
      */
     void removeExp(String amount);
 
+    /**
+     * Removes experience points from the user, without converting them to a string first.
+     *
+     * <p> By default, the amount is passed to {@link #removeExp(String)}, which always
+     * updates the leaderboard.
+     *
+     * @param amount the amount of experience points to remove
+     * @param checkLeaderboard whether to update the leaderboard with the new experience
+     */
+    default void removeExp(double amount, boolean checkLeaderboard) {
+        removeExp(String.valueOf(amount));
+    }
+
+    /**
+     * Removes experience points from the user, without converting them to a string first.
+     * @param amount the amount of experience points to remove
+     */
+    default void removeExp(double amount) {
+        removeExp(amount, true);
+    }
+
     /**
      * Checks if the user has a specific permission.
      *
@@ -183,7 +228,17 @@ public interface LevelUser<N extends Number> extends Comparable<LevelUser<N>> {
 
     /**
      * Gets the experience multiplier for the user.
+     *
+     * <p> The multiplier is read from the player's permissions the first time it is needed and
+     * kept until {@link #refreshMultiplier()} is called.
+     *
      * @return the experience multiplier
      */
     double getMultiplier();
+
+    /**
+     * Reads the experience multiplier again from the player's permissions, if the player is online.
+     * Does nothing by default, for users that read it on every call.
+     */
+    default void refreshMultiplier() {}
 }
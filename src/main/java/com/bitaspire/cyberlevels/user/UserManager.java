@@ -104,4 +104,26 @@ public interface UserManager<N extends Number> {
      * Cancels the auto-save task.
      */
     void cancelAutoSave();
+
+    /**
+     * Starts the task that periodically reads the multipliers of online players again.
+     * Does nothing by default.
+     */
+    default void startMultiplierRefresh() {}
+
+    /**
+     * Cancels the multiplier refresh task. Does nothing by default.
+     */
+    default void cancelMultiplierRefresh() {}
+
+    /**
+     * Starts the task that periodically reads the leaderboard from the database, if the leaderboard is stored there.
+     * Does nothing by default.
+     */
+    default void startLeaderboardRefresh() {}
+
+    /**
+     * Cancels the leaderboard refresh task. Does nothing by default.
+     */
+    default void cancelLeaderboardRefresh() {}
 }
@@ -22,19 +22,27 @@ import com.bitaspire.libs.formula.expression.ExpressionBuilder;
 import com.bitaspire.libs.formula.expression.ExpressionConfig;
 import com.bitaspire.libs.formula.expression.ExpressionDictionary;
 import com.bitaspire.libs.formula.expression.ExpressionParameter;
+import com.bitaspire.libs.formula.token.BinaryOperation;
 import com.bitaspire.libs.formula.token.Function;
 import com.bitaspire.libs.formula.token.Operator;
 import com.bitaspire.libs.formula.token.OperatorType;
+import com.bitaspire.libs.formula.token.UnaryOperation;
 import lombok.Getter;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * The <code>BigDecimalExpressionBuilder</code> class provides an implementation to parse expressions for parameters of type {@link BigDecimal}.<br>
+ * Builders created without a dictionary share the frozen default dictionary of their math context, so adding or
+ * removing entries through {@link #getExpressionDictionary()} throws an exception. Custom operators, functions or
+ * constants are added to a dictionary from {@link #newDictionary(MathContext)}, passed to
+ * {@link #BigDecimalExpressionBuilder(MathContext, ExpressionDictionary)}.
  * 
  * @author Pratanu Mandal
  * @since 1.0
@@ -46,6 +54,21 @@ public class BigDecimalExpressionBuilder extends ExpressionBuilder<BigDecimal> {
 	/** Default math context */
 	public static final MathContext DEFAULT_CONTEXT = new MathContext(20, RoundingMode.HALF_UP);
 
+	/** Shared frozen dictionaries, by math context */
+	private static final Map<MathContext, ExpressionDictionary<BigDecimal>> DICTIONARIES = new ConcurrentHashMap<>();
+
+	private static final ExpressionConfig<BigDecimal> CONFIG = new ExpressionConfig<BigDecimal>() {
+		@Override
+		protected BigDecimal stringToOperand(String operand) {
+			return new BigDecimal(operand);
+		}
+
+		@Override
+		protected String operandToString(BigDecimal operand) {
+			return operand.toString();
+		}
+	};
+
 	private MathContext mathContext;
 
 	/**
@@ -75,80 +98,106 @@ public class BigDecimalExpressionBuilder extends ExpressionBuilder<BigDecimal> {
 	}
 
 	/**
-	 * Parameterized constructor.
+	 * Parameterized constructor.<br>
+	 * The builder shares the frozen default dictionary of the math context.
 	 *
 	 * @param mathContext Math context
 	 */
 	public BigDecimalExpressionBuilder(MathContext mathContext) {
-		super(new ExpressionConfig<BigDecimal>() {
-			@Override
-			protected BigDecimal stringToOperand(String operand) {
-				return new BigDecimal(operand);
-			}
-
-			@Override
-			protected String operandToString(BigDecimal operand) {
-				return operand.toString();
-			}
-		});
+		this(mathContext, dictionary(mathContext));
+	}
 
+	/**
+	 * Parameterized constructor.
+	 *
+	 * @param mathContext Math context
+	 * @param dictionary Expression dictionary, e.g. one from {@link #newDictionary(MathContext)}
+	 *                   with custom functions registered before freezing it
+	 */
+	public BigDecimalExpressionBuilder(MathContext mathContext, ExpressionDictionary<BigDecimal> dictionary) {
+		super(CONFIG, dictionary);
 		this.mathContext = mathContext;
-		this.initialize();
 	}
 
 	/**
-	 * Initialize the operators, functions, and constants.
+	 * Get the shared frozen dictionary of a math context, creating it on first use.
+	 *
+	 * @param mathContext Math context
+	 * @return The frozen dictionary
+	 */
+	public static ExpressionDictionary<BigDecimal> dictionary(MathContext mathContext) {
+		return DICTIONARIES.computeIfAbsent(mathContext, context -> newDictionary(context).freeze());
+	}
+
+	/**
+	 * Create a new modifiable dictionary with the default operators, functions and constants.
+	 *
+	 * @param mathContext Math context
+	 * @return The dictionary
+	 */
+	public static ExpressionDictionary<BigDecimal> newDictionary(MathContext mathContext) {
+		ExpressionDictionary<BigDecimal> dictionary = new ExpressionDictionary<>();
+		initialize(dictionary, mathContext);
+		return dictionary;
+	}
+
+	/**
+	 * Not called anymore, and does nothing: the defaults are registered by {@link #newDictionary(MathContext)}.
+	 *
+	 * @deprecated add custom entries to a dictionary from {@link #newDictionary(MathContext)}, and pass it to
+	 * {@link #BigDecimalExpressionBuilder(MathContext, ExpressionDictionary)}
 	 */
-	protected void initialize() {
-		ExpressionDictionary<BigDecimal> expressionDictionary = this.getExpressionDictionary();
+	@Deprecated
+	protected void initialize() {}
 
-		expressionDictionary.addOperator(new Operator<>("+", OperatorType.PREFIX, Integer.MAX_VALUE, (parameters) -> parameters.get(0).value()));
-		expressionDictionary.addOperator(new Operator<>("-", OperatorType.PREFIX, Integer.MAX_VALUE, (parameters) -> parameters.get(0).value().negate()));
+	private static void initialize(ExpressionDictionary<BigDecimal> expressionDictionary, MathContext mathContext) {
+		expressionDictionary.addOperator(new Operator<>("+", OperatorType.PREFIX, Integer.MAX_VALUE, (UnaryOperation<BigDecimal>) x -> x));
+		expressionDictionary.addOperator(new Operator<>("-", OperatorType.PREFIX, Integer.MAX_VALUE, (UnaryOperation<BigDecimal>) x -> x.negate()));
 
-		expressionDictionary.addOperator(new Operator<>("+", OperatorType.INFIX, 1, (parameters) -> parameters.get(0).value().add(parameters.get(1).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("-", OperatorType.INFIX, 1, (parameters) -> parameters.get(0).value().subtract(parameters.get(1).value(), mathContext)));
+		expressionDictionary.addOperator(new Operator<>("+", OperatorType.INFIX, 1, (BinaryOperation<BigDecimal>) (x, y) -> x.add(y, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("-", OperatorType.INFIX, 1, (BinaryOperation<BigDecimal>) (x, y) -> x.subtract(y, mathContext)));
 
-		expressionDictionary.addOperator(new Operator<>("*", OperatorType.INFIX, 2, (parameters) -> parameters.get(0).value().multiply(parameters.get(1).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("/", OperatorType.INFIX, 2, (parameters) -> parameters.get(0).value().divide(parameters.get(1).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("%", OperatorType.INFIX, 2, (parameters) -> parameters.get(0).value().remainder(parameters.get(1).value(), mathContext)));
+		expressionDictionary.addOperator(new Operator<>("*", OperatorType.INFIX, 2, (BinaryOperation<BigDecimal>) (x, y) -> x.multiply(y, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("/", OperatorType.INFIX, 2, (BinaryOperation<BigDecimal>) (x, y) -> x.divide(y, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("%", OperatorType.INFIX, 2, (BinaryOperation<BigDecimal>) (x, y) -> x.remainder(y, mathContext)));
 
-		expressionDictionary.addOperator(new Operator<>("^", OperatorType.INFIX_RTL, 3, (parameters) -> BigDecimalMath.pow(parameters.get(0).value(), parameters.get(1).value(), mathContext)));
+		expressionDictionary.addOperator(new Operator<>("^", OperatorType.INFIX_RTL, 3, (BinaryOperation<BigDecimal>) (x, y) -> BigDecimalMath.pow(x, y, mathContext)));
 
-		expressionDictionary.addOperator(new Operator<>("!", OperatorType.POSTFIX, 5, (parameters) -> BigDecimalUtils.factorial(parameters.get(0).value())));
+		expressionDictionary.addOperator(new Operator<>("!", OperatorType.POSTFIX, 5, (UnaryOperation<BigDecimal>) x -> BigDecimalUtils.factorial(x)));
 
-		expressionDictionary.addOperator(new Operator<>("abs", OperatorType.PREFIX, 4, (parameters) -> parameters.get(0).value().abs(mathContext)));
+		expressionDictionary.addOperator(new Operator<>("abs", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> x.abs(mathContext)));
 
-		expressionDictionary.addOperator(new Operator<>("sin", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.sin(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("cos", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.cos(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("tan", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.tan(parameters.get(0).value(), mathContext)));
+		expressionDictionary.addOperator(new Operator<>("sin", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.sin(x, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("cos", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.cos(x, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("tan", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.tan(x, mathContext)));
 
-		expressionDictionary.addOperator(new Operator<>("asin", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.asin(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("acos", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.acos(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("atan", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.atan(parameters.get(0).value(), mathContext)));
+		expressionDictionary.addOperator(new Operator<>("asin", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.asin(x, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("acos", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.acos(x, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("atan", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.atan(x, mathContext)));
 
-		expressionDictionary.addOperator(new Operator<>("sinh", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.sinh(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("cosh", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.cosh(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("tanh", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.tanh(parameters.get(0).value(), mathContext)));
+		expressionDictionary.addOperator(new Operator<>("sinh", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.sinh(x, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("cosh", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.cosh(x, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("tanh", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.tanh(x, mathContext)));
 
-		expressionDictionary.addOperator(new Operator<>("asinh", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.asinh(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("acosh", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.acosh(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("atanh", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.atanh(parameters.get(0).value(), mathContext)));
+		expressionDictionary.addOperator(new Operator<>("asinh", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.asinh(x, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("acosh", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.acosh(x, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("atanh", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.atanh(x, mathContext)));
 
-		expressionDictionary.addFunction(new Function<>("deg", 1, (parameters) -> BigDecimalMath.toDegrees(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addFunction(new Function<>("rad", 1, (parameters) -> BigDecimalMath.toRadians(parameters.get(0).value(), mathContext)));
+		expressionDictionary.addFunction(new Function<>("deg", 1, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.toDegrees(x, mathContext)));
+		expressionDictionary.addFunction(new Function<>("rad", 1, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.toRadians(x, mathContext)));
 
-		expressionDictionary.addOperator(new Operator<>("round", OperatorType.PREFIX, 4, (parameters) -> parameters.get(0).value().setScale(0, RoundingMode.HALF_UP)));
-		expressionDictionary.addOperator(new Operator<>("floor", OperatorType.PREFIX, 4, (parameters) -> parameters.get(0).value().setScale(0, RoundingMode.FLOOR)));
-		expressionDictionary.addOperator(new Operator<>("ceil", OperatorType.PREFIX, 4, (parameters) -> parameters.get(0).value().setScale(0, RoundingMode.CEILING)));
+		expressionDictionary.addOperator(new Operator<>("round", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> x.setScale(0, RoundingMode.HALF_UP)));
+		expressionDictionary.addOperator(new Operator<>("floor", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> x.setScale(0, RoundingMode.FLOOR)));
+		expressionDictionary.addOperator(new Operator<>("ceil", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> x.setScale(0, RoundingMode.CEILING)));
 
-		expressionDictionary.addOperator(new Operator<>("ln", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.log(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("log10", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.log10(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addFunction(new Function<>("log", 2, (parameters) -> BigDecimalUtils.log(parameters.get(1).value(), parameters.get(0).value(), mathContext)));
+		expressionDictionary.addOperator(new Operator<>("ln", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.log(x, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("log10", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.log10(x, mathContext)));
+		expressionDictionary.addFunction(new Function<>("log", 2, (BinaryOperation<BigDecimal>) (x, y) -> BigDecimalUtils.log(y, x, mathContext)));
 
-		expressionDictionary.addOperator(new Operator<>("sqrt", OperatorType.PREFIX, 4, (parameters) -> BigDecimalMath.sqrt(parameters.get(0).value(), mathContext)));
-		expressionDictionary.addOperator(new Operator<>("cbrt", OperatorType.PREFIX, 4, (parameters) -> BigDecimalUtils.cbrt(parameters.get(0).value(), mathContext)));
+		expressionDictionary.addOperator(new Operator<>("sqrt", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.sqrt(x, mathContext)));
+		expressionDictionary.addOperator(new Operator<>("cbrt", OperatorType.PREFIX, 4, (UnaryOperation<BigDecimal>) x -> BigDecimalUtils.cbrt(x, mathContext)));
 
-		expressionDictionary.addFunction(new Function<>("exp", 1, (parameters) -> BigDecimalMath.exp(parameters.get(0).value(), mathContext)));
+		expressionDictionary.addFunction(new Function<>("exp", 1, (UnaryOperation<BigDecimal>) x -> BigDecimalMath.exp(x, mathContext)));
 
 		expressionDictionary.addFunction(new Function<>("max", (parameters) -> parameters.isEmpty() ? BigDecimal.ZERO : Collections.max(parameters.stream().map(ExpressionParameter::value).collect(Collectors.toList()))));
 		expressionDictionary.addFunction(new Function<>("min", (parameters) -> parameters.isEmpty() ? BigDecimal.ZERO : Collections.min(parameters.stream().map(ExpressionParameter::value).collect(Collectors.toList()))));
@@ -168,8 +217,7 @@ public class BigDecimalExpressionBuilder extends ExpressionBuilder<BigDecimal> {
 	 * @param mathContext Math context
 	 */
 	public void setMathContext(MathContext mathContext) {
-		this.reset();
 		this.mathContext = mathContext;
-		this.initialize();
+		this.setExpressionDictionary(dictionary(mathContext));
 	}
 }
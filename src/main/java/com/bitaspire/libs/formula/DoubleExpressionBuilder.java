@@ -7,84 +7,119 @@ import com.bitaspire.libs.formula.token.Function;
 import com.bitaspire.libs.formula.token.Operator;
 import com.bitaspire.libs.formula.token.OperatorType;
 
-import java.util.Collections;
-import java.util.stream.Collectors;
-
+/**
+ * Parses expressions for operands of type {@link Double}.
+ *
+ * <p> Builders created without a dictionary share one frozen default dictionary, so adding or
+ * removing entries through {@link #getExpressionDictionary()} throws an exception. Custom operators,
+ * functions or constants are added to a dictionary from {@link #newDictionary()}, passed to
+ * {@link #DoubleExpressionBuilder(ExpressionDictionary)}.
+ */
 public class DoubleExpressionBuilder extends ExpressionBuilder<Double> {
 
+    private static final ExpressionConfig<Double> CONFIG = new ExpressionConfig<Double>() {
+        @Override
+        protected Double stringToOperand(String operand) {
+            return Double.parseDouble(operand);
+        }
+
+        protected String operandToString(Double operand) {
+            return operand == operand.intValue() ? String.valueOf(operand.intValue()) : operand.toString();
+        }
+    };
+
+    private static final ExpressionDictionary<Double> DICTIONARY = newDictionary().freeze();
+
+    /**
+     * Creates a builder sharing the frozen default dictionary.
+     */
     public DoubleExpressionBuilder() {
-        super(new ExpressionConfig<Double>() {
-            @Override
-            protected Double stringToOperand(String operand) {
-                return Double.parseDouble(operand);
-            }
-
-            protected String operandToString(Double operand) {
-                return operand == operand.intValue() ? String.valueOf(operand.intValue()) : operand.toString();
-            }
-        });
-
-        this.initialize();
+        this(DICTIONARY);
     }
 
-    protected void initialize() {
-        ExpressionDictionary<Double> expressionDictionary = this.getExpressionDictionary();
+    /**
+     * Creates a builder using the given dictionary, e.g. one from {@link #newDictionary()} with custom
+     * functions registered before freezing it.
+     */
+    public DoubleExpressionBuilder(ExpressionDictionary<Double> dictionary) {
+        super(CONFIG, dictionary);
+    }
+
+    /**
+     * Creates a new modifiable dictionary with the default operators, functions and constants.
+     */
+    public static ExpressionDictionary<Double> newDictionary() {
+        ExpressionDictionary<Double> dictionary = new ExpressionDictionary<>();
+        initialize(dictionary);
+        return dictionary;
+    }
+
+    /**
+     * Not called anymore, and does nothing: the defaults are registered by {@link #newDictionary()}.
+     *
+     * @deprecated add custom entries to a dictionary from {@link #newDictionary()}, and pass it to
+     * {@link #DoubleExpressionBuilder(ExpressionDictionary)}
+     */
+    @Deprecated
+    protected void initialize() {}
+
+    private static void initialize(ExpressionDictionary<Double> expressionDictionary) {
 
-        expressionDictionary.addOperator(new Operator<>("+", OperatorType.PREFIX, Integer.MAX_VALUE, (parameters) -> parameters.get(0).value()));
-        expressionDictionary.addOperator(new Operator<>("-", OperatorType.PREFIX, Integer.MAX_VALUE, (parameters) -> -parameters.get(0).value()));
+        expressionDictionary.addOperator(new Operator<>("+", OperatorType.PREFIX, Integer.MAX_VALUE, new DoubleOperations.Unary(x -> x)));
+        expressionDictionary.addOperator(new Operator<>("-", OperatorType.PREFIX, Integer.MAX_VALUE, new DoubleOperations.Unary(x -> -x)));
 
-        expressionDictionary.addOperator(new Operator<>("+", OperatorType.INFIX, 1, (parameters) -> parameters.get(0).value() + parameters.get(1).value()));
-        expressionDictionary.addOperator(new Operator<>("-", OperatorType.INFIX, 1, (parameters) -> parameters.get(0).value() - parameters.get(1).value()));
+        expressionDictionary.addOperator(new Operator<>("+", OperatorType.INFIX, 1, new DoubleOperations.Binary((x, y) -> x + y)));
+        expressionDictionary.addOperator(new Operator<>("-", OperatorType.INFIX, 1, new DoubleOperations.Binary((x, y) -> x - y)));
 
-        expressionDictionary.addOperator(new Operator<>("*", OperatorType.INFIX, 2, (parameters) -> parameters.get(0).value() * parameters.get(1).value()));
-        expressionDictionary.addOperator(new Operator<>("/", OperatorType.INFIX, 2, (parameters) -> parameters.get(0).value() / parameters.get(1).value()));
-        expressionDictionary.addOperator(new Operator<>("%", OperatorType.INFIX, 2, (parameters) -> parameters.get(0).value() % parameters.get(1).value()));
+        expressionDictionary.addOperator(new Operator<>("*", OperatorType.INFIX, 2, new DoubleOperations.Binary((x, y) -> x * y)));
+        expressionDictionary.addOperator(new Operator<>("/", OperatorType.INFIX, 2, new DoubleOperations.Binary((x, y) -> x / y)));
+        expressionDictionary.addOperator(new Operator<>("%", OperatorType.INFIX, 2, new DoubleOperations.Binary((x, y) -> x % y)));
 
-        expressionDictionary.addOperator(new Operator<>("^", OperatorType.INFIX_RTL, 3, (parameters) -> Math.pow(parameters.get(0).value(), parameters.get(1).value())));
+        expressionDictionary.addOperator(new Operator<>("^", OperatorType.INFIX_RTL, 3, new DoubleOperations.Binary(Math::pow)));
 
-        expressionDictionary.addOperator(new Operator<>("!", OperatorType.POSTFIX, 5, (parameters) -> DoubleUtils.factorial(parameters.get(0).value())));
+        expressionDictionary.addOperator(new Operator<>("!", OperatorType.POSTFIX, 5, new DoubleOperations.Unary(DoubleUtils::factorial)));
 
-        expressionDictionary.addOperator(new Operator<>("abs", OperatorType.PREFIX, 4, (parameters) -> Math.abs(parameters.get(0).value())));
+        expressionDictionary.addOperator(new Operator<>("abs", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::abs)));
 
-        expressionDictionary.addOperator(new Operator<>("sin", OperatorType.PREFIX, 4, (parameters) -> Math.sin(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("cos", OperatorType.PREFIX, 4, (parameters) -> Math.cos(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("tan", OperatorType.PREFIX, 4, (parameters) -> Math.tan(parameters.get(0).value())));
+        expressionDictionary.addOperator(new Operator<>("sin", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::sin)));
+        expressionDictionary.addOperator(new Operator<>("cos", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::cos)));
+        expressionDictionary.addOperator(new Operator<>("tan", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::tan)));
 
-        expressionDictionary.addOperator(new Operator<>("asin", OperatorType.PREFIX, 4, (parameters) -> Math.asin(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("acos", OperatorType.PREFIX, 4, (parameters) -> Math.acos(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("atan", OperatorType.PREFIX, 4, (parameters) -> Math.atan(parameters.get(0).value())));
+        expressionDictionary.addOperator(new Operator<>("asin", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::asin)));
+        expressionDictionary.addOperator(new Operator<>("acos", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::acos)));
+        expressionDictionary.addOperator(new Operator<>("atan", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::atan)));
 
-        expressionDictionary.addOperator(new Operator<>("sinh", OperatorType.PREFIX, 4, (parameters) -> Math.sinh(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("cosh", OperatorType.PREFIX, 4, (parameters) -> Math.cosh(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("tanh", OperatorType.PREFIX, 4, (parameters) -> Math.tanh(parameters.get(0).value())));
+        expressionDictionary.addOperator(new Operator<>("sinh", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::sinh)));
+        expressionDictionary.addOperator(new Operator<>("cosh", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::cosh)));
+        expressionDictionary.addOperator(new Operator<>("tanh", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::tanh)));
 
-        expressionDictionary.addOperator(new Operator<>("asinh", OperatorType.PREFIX, 4, (parameters) -> DoubleUtils.asinh(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("acosh", OperatorType.PREFIX, 4, (parameters) -> DoubleUtils.acosh(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("atanh", OperatorType.PREFIX, 4, (parameters) -> DoubleUtils.atanh(parameters.get(0).value())));
+        expressionDictionary.addOperator(new Operator<>("asinh", OperatorType.PREFIX, 4, new DoubleOperations.Unary(DoubleUtils::asinh)));
+        expressionDictionary.addOperator(new Operator<>("acosh", OperatorType.PREFIX, 4, new DoubleOperations.Unary(DoubleUtils::acosh)));
+        expressionDictionary.addOperator(new Operator<>("atanh", OperatorType.PREFIX, 4, new DoubleOperations.Unary(DoubleUtils::atanh)));
 
-        expressionDictionary.addFunction(new Function<>("deg", 1, (parameters) -> Math.toDegrees(parameters.get(0).value())));
-        expressionDictionary.addFunction(new Function<>("rad", 1, (parameters) -> Math.toRadians(parameters.get(0).value())));
+        expressionDictionary.addFunction(new Function<>("deg", 1, new DoubleOperations.Unary(Math::toDegrees)));
+        expressionDictionary.addFunction(new Function<>("rad", 1, new DoubleOperations.Unary(Math::toRadians)));
 
-        expressionDictionary.addOperator(new Operator<>("round", OperatorType.PREFIX, 4, (parameters) -> (double) Math.round(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("floor", OperatorType.PREFIX, 4, (parameters) -> Math.floor(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("ceil", OperatorType.PREFIX, 4, (parameters) -> Math.ceil(parameters.get(0).value())));
+        expressionDictionary.addOperator(new Operator<>("round", OperatorType.PREFIX, 4, new DoubleOperations.Unary(x -> (double) Math.round(x))));
+        expressionDictionary.addOperator(new Operator<>("floor", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::floor)));
+        expressionDictionary.addOperator(new Operator<>("ceil", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::ceil)));
 
-        expressionDictionary.addOperator(new Operator<>("ln", OperatorType.PREFIX, 4, (parameters) -> Math.log(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("log10", OperatorType.PREFIX, 4, (parameters) -> Math.log10(parameters.get(0).value())));
-        expressionDictionary.addFunction(new Function<>("log", 2, (parameters) -> DoubleUtils.log(parameters.get(1).value(), parameters.get(0).value())));
+        expressionDictionary.addOperator(new Operator<>("ln", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::log)));
+        expressionDictionary.addOperator(new Operator<>("log10", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::log10)));
+        expressionDictionary.addFunction(new Function<>("log", 2, new DoubleOperations.Binary((x, y) -> DoubleUtils.log(y, x))));
 
-        expressionDictionary.addOperator(new Operator<>("sqrt", OperatorType.PREFIX, 4, (parameters) -> Math.sqrt(parameters.get(0).value())));
-        expressionDictionary.addOperator(new Operator<>("cbrt", OperatorType.PREFIX, 4, (parameters) -> Math.cbrt(parameters.get(0).value())));
+        expressionDictionary.addOperator(new Operator<>("sqrt", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::sqrt)));
+        expressionDictionary.addOperator(new Operator<>("cbrt", OperatorType.PREFIX, 4, new DoubleOperations.Unary(Math::cbrt)));
 
-        expressionDictionary.addFunction(new Function<>("exp", 1, (parameters) -> Math.exp(parameters.get(0).value())));
+        expressionDictionary.addFunction(new Function<>("exp", 1, new DoubleOperations.Unary(Math::exp)));
 
-        expressionDictionary.addFunction(new Function<>("max", (parameters) -> parameters.isEmpty() ? 0.0 : Collections.max(parameters.stream().map(e -> e.value()).collect(Collectors.toList()))));
-        expressionDictionary.addFunction(new Function<>("min", (parameters) -> parameters.isEmpty() ? 0.0 : Collections.min(parameters.stream().map(e -> e.value()).collect(Collectors.toList()))));
+        expressionDictionary.addFunction(new Function<>("max", DoubleOperations.MAX));
+        expressionDictionary.addFunction(new Function<>("min", DoubleOperations.MIN));
 
-        expressionDictionary.addFunction(new Function<>("mean", (parameters) -> DoubleUtils.average(parameters.stream().map(e -> e.value()).collect(Collectors.toList()))));
-        expressionDictionary.addFunction(new Function<>("average", (parameters) -> DoubleUtils.average(parameters.stream().map(e -> e.value()).collect(Collectors.toList()))));
+        expressionDictionary.addFunction(new Function<>("mean", DoubleOperations.MEAN));
+        expressionDictionary.addFunction(new Function<>("average", DoubleOperations.MEAN));
 
-        expressionDictionary.addFunction(new Function<>("rand", 0, (parameters) -> Math.random()));
+        expressionDictionary.addFunction(new Function<>("rand", 0, new DoubleOperations.Nullary(Math::random)));
 
         expressionDictionary.addConstant("pi", Math.PI);
         expressionDictionary.addConstant("e", Math.E);
@@ -0,0 +1,258 @@
+package com.bitaspire.libs.formula;
+
+import com.bitaspire.libs.formula.expression.Expression;
+import com.bitaspire.libs.formula.expression.ExpressionDictionary;
+import com.bitaspire.libs.formula.expression.ExpressionNode;
+import com.bitaspire.libs.formula.token.Function;
+import com.bitaspire.libs.formula.token.Operand;
+import com.bitaspire.libs.formula.token.Operation;
+import com.bitaspire.libs.formula.token.Operator;
+import com.bitaspire.libs.formula.token.OperatorType;
+import com.bitaspire.libs.formula.token.Variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Evaluates a parsed {@link Double} expression over a primitive stack.
+ * <p>
+ * The expression tree is flattened once into postfix order, with constants already resolved and
+ * variables bound to indexes of a {@code double[]}, so an evaluation does not allocate anything.
+ * Only expressions made of {@link DoubleOperations} can be compiled; anything else should keep
+ * using {@link Expression#evaluate(java.util.Map)}.
+ */
+public final class DoubleExpressionEvaluator {
+
+    private static final byte CONSTANT = 0, VARIABLE = 1, NULLARY = 2, UNARY = 3, BINARY = 4, VARIADIC = 5;
+
+    private static final ThreadLocal<double[]> STACK = ThreadLocal.withInitial(() -> new double[16]);
+
+    private final byte[] codes;
+    private final int[] arguments;
+    private final double[] constants;
+
+    private final DoubleSupplier[] nullary;
+    private final DoubleUnaryOperator[] unary;
+    private final DoubleBinaryOperator[] binary;
+    private final DoubleOperations.Variadic[] variadic;
+
+    private final int stackSize;
+
+    private DoubleExpressionEvaluator(List<ExpressionNode> nodes, Compiler compiler) {
+        int size = nodes.size();
+
+        codes = new byte[size];
+        arguments = new int[size];
+        constants = new double[size];
+
+        nullary = new DoubleSupplier[size];
+        unary = new DoubleUnaryOperator[size];
+        binary = new DoubleBinaryOperator[size];
+        variadic = new DoubleOperations.Variadic[size];
+
+        int depth = 0, maxDepth = 0;
+
+        for (int i = 0; i < size; i++) {
+            ExpressionNode node = nodes.get(i);
+
+            if (node.token instanceof Variable) {
+                String label = ((Variable) node.token).label;
+                int index = compiler.variables.indexOf(label);
+
+                if (index >= 0) {
+                    codes[i] = VARIABLE;
+                    arguments[i] = index;
+                } else {
+                    codes[i] = CONSTANT;
+                    constants[i] = compiler.dictionary.getConstant(label);
+                }
+            }
+            else if (node.token instanceof Operand) {
+                codes[i] = CONSTANT;
+                constants[i] = compiler.operand(node);
+            }
+            else {
+                Operation<Double> operation = Compiler.operation(node);
+                int count = node.children.size();
+
+                if (operation instanceof DoubleOperations.Nullary) {
+                    codes[i] = NULLARY;
+                    nullary[i] = ((DoubleOperations.Nullary) operation).supplier;
+                }
+                else if (operation instanceof DoubleOperations.Unary) {
+                    codes[i] = UNARY;
+                    unary[i] = ((DoubleOperations.Unary) operation).operator;
+                }
+                else if (operation instanceof DoubleOperations.Binary) {
+                    codes[i] = BINARY;
+                    binary[i] = ((DoubleOperations.Binary) operation).operator;
+                }
+                else {
+                    codes[i] = VARIADIC;
+                    variadic[i] = (DoubleOperations.Variadic) operation;
+                    arguments[i] = count;
+                }
+
+                depth -= count;
+            }
+
+            maxDepth = Math.max(maxDepth, ++depth);
+        }
+
+        stackSize = maxDepth;
+    }
+
+    /**
+     * Compiles an expression, binding the given variable labels to the indexes of the values array
+     * passed to {@link #evaluate(double...)}. Variables override constants with the same label.
+     *
+     * @param expression The parsed expression
+     * @param variables Labels of the variables, in order
+     * @return The evaluator, or null if the expression can not be evaluated on a primitive stack
+     */
+    public static DoubleExpressionEvaluator compile(Expression<Double> expression, String... variables) {
+        if (expression == null || expression.root == null) return null;
+
+        Compiler compiler = new Compiler(expression.getExpressionDictionary(), Arrays.asList(variables));
+        List<ExpressionNode> nodes = new ArrayList<>();
+
+        return compiler.flatten(expression.root, nodes) ? new DoubleExpressionEvaluator(nodes, compiler) : null;
+    }
+
+    /**
+     * Get the stack size needed to evaluate this expression.
+     *
+     * @return The stack size
+     */
+    public int getStackSize() {
+        return stackSize;
+    }
+
+    /**
+     * Evaluate the expression using a stack owned by the calling thread.
+     *
+     * @param values Values of the variables, in the order they were compiled with
+     * @return Evaluated result
+     */
+    public double evaluate(double... values) {
+        double[] stack = STACK.get();
+        if (stack.length < stackSize) STACK.set(stack = new double[stackSize]);
+
+        return evaluate(values, stack);
+    }
+
+    /**
+     * Evaluate the expression using the given stack.
+     *
+     * @param values Values of the variables, in the order they were compiled with
+     * @param stack A stack of at least {@link #getStackSize()} elements
+     * @return Evaluated result
+     */
+    public double evaluate(double[] values, double[] stack) {
+        int top = 0;
+
+        for (int i = 0; i < codes.length; i++) {
+            switch (codes[i]) {
+                case CONSTANT:
+                    stack[top++] = constants[i];
+                    break;
+
+                case VARIABLE:
+                    stack[top++] = values[arguments[i]];
+                    break;
+
+                case NULLARY:
+                    stack[top++] = nullary[i].getAsDouble();
+                    break;
+
+                case UNARY:
+                    stack[top - 1] = unary[i].applyAsDouble(stack[top - 1]);
+                    break;
+
+                case BINARY:
+                    top--;
+                    stack[top - 1] = binary[i].applyAsDouble(stack[top - 1], stack[top]);
+                    break;
+
+                default:
+                    top -= arguments[i];
+                    stack[top] = variadic[i].apply(stack, top, arguments[i]);
+                    top++;
+            }
+        }
+
+        return stack[0];
+    }
+
+    private static final class Compiler {
+
+        private final ExpressionDictionary<Double> dictionary;
+        private final List<String> variables;
+
+        private Compiler(ExpressionDictionary<Double> dictionary, List<String> variables) {
+            this.dictionary = dictionary;
+            this.variables = variables;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Operation<Double> operation(ExpressionNode node) {
+            return node.token instanceof Function ?
+                    ((Function<Double>) node.token).operation :
+                    ((Operator<Double>) node.token).operation;
+        }
+
+        @SuppressWarnings("unchecked")
+        private double operand(ExpressionNode node) {
+            return ((Operand<Double>) node.token).value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean flatten(ExpressionNode node, List<ExpressionNode> nodes) {
+            if (node.token instanceof Variable) {
+                String label = ((Variable) node.token).label;
+                if (!variables.contains(label) &&
+                        (!dictionary.hasConstant(label) || dictionary.getConstant(label) == null)) return false;
+
+                nodes.add(node);
+                return true;
+            }
+
+            if (node.token instanceof Operand) {
+                if (((Operand<Double>) node.token).value == null) return false;
+
+                nodes.add(node);
+                return true;
+            }
+
+            int expected;
+            if (node.token instanceof Function) {
+                expected = ((Function<Double>) node.token).parameters;
+            }
+            else if (node.token instanceof Operator) {
+                OperatorType type = ((Operator<Double>) node.token).type;
+                expected = type == OperatorType.INFIX || type == OperatorType.INFIX_RTL ? 2 : 1;
+            }
+            else return false;
+
+            int count = node.children.size();
+            if (count != expected) return false;
+
+            Operation<Double> operation = operation(node);
+            if (!(operation instanceof DoubleOperations.Variadic ||
+                    (operation instanceof DoubleOperations.Nullary && count == 0) ||
+                    (operation instanceof DoubleOperations.Unary && count == 1) ||
+                    (operation instanceof DoubleOperations.Binary && count == 2)))
+                return false;
+
+            for (ExpressionNode child : node.children)
+                if (!flatten(child, nodes)) return false;
+
+            nodes.add(node);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.bitaspire.libs.formula;
+
+import com.bitaspire.libs.formula.expression.ExpressionParameter;
+import com.bitaspire.libs.formula.token.BinaryOperation;
+import com.bitaspire.libs.formula.token.Operation;
+import com.bitaspire.libs.formula.token.UnaryOperation;
+
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Operations of the {@link DoubleExpressionBuilder} that also expose their primitive form, so the
+ * {@link DoubleExpressionEvaluator} can run them without boxing. Both forms share the same code.
+ */
+public final class DoubleOperations {
+
+    private DoubleOperations() {}
+
+    /**
+     * An operation taking a single operand.
+     */
+    public static final class Unary implements UnaryOperation<Double> {
+
+        public final DoubleUnaryOperator operator;
+
+        public Unary(DoubleUnaryOperator operator) {
+            this.operator = operator;
+        }
+
+        @Override
+        public Double apply(Double operand) {
+            return operator.applyAsDouble(operand);
+        }
+    }
+
+    /**
+     * An operation taking two operands, in the order they are written.
+     */
+    public static final class Binary implements BinaryOperation<Double> {
+
+        public final DoubleBinaryOperator operator;
+
+        public Binary(DoubleBinaryOperator operator) {
+            this.operator = operator;
+        }
+
+        @Override
+        public Double apply(Double left, Double right) {
+            return operator.applyAsDouble(left, right);
+        }
+    }
+
+    /**
+     * An operation without operands.
+     */
+    public static final class Nullary implements Operation<Double> {
+
+        public final DoubleSupplier supplier;
+
+        public Nullary(DoubleSupplier supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public Double execute(List<ExpressionParameter<Double>> parameters) {
+            return supplier.getAsDouble();
+        }
+    }
+
+    /**
+     * An operation taking any number of operands.
+     */
+    public static abstract class Variadic implements Operation<Double> {
+
+        /**
+         * Applies the operation to a range of values.
+         *
+         * @param values array holding the operands
+         * @param offset index of the first operand
+         * @param count number of operands
+         * @return the result
+         */
+        public abstract double apply(double[] values, int offset, int count);
+
+        @Override
+        public Double execute(List<ExpressionParameter<Double>> parameters) {
+            double[] values = new double[parameters.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = parameters.get(i).value();
+
+            return apply(values, 0, values.length);
+        }
+    }
+
+    /**
+     * Highest operand, compared as {@link Double#compareTo(Double)} does. Zero if there are no operands.
+     */
+    public static final Variadic MAX = new Variadic() {
+        @Override
+        public double apply(double[] values, int offset, int count) {
+            if (count == 0) return 0.0;
+
+            double result = values[offset];
+            for (int i = offset + 1; i < offset + count; i++)
+                if (Double.compare(values[i], result) > 0) result = values[i];
+
+            return result;
+        }
+    };
+
+    /**
+     * Lowest operand, compared as {@link Double#compareTo(Double)} does. Zero if there are no operands.
+     */
+    public static final Variadic MIN = new Variadic() {
+        @Override
+        public double apply(double[] values, int offset, int count) {
+            if (count == 0) return 0.0;
+
+            double result = values[offset];
+            for (int i = offset + 1; i < offset + count; i++)
+                if (Double.compare(values[i], result) < 0) result = values[i];
+
+            return result;
+        }
+    };
+
+    /**
+     * Arithmetic mean of the operands, see {@link DoubleUtils#average(double[], int, int)}.
+     */
+    public static final Variadic MEAN = new Variadic() {
+        @Override
+        public double apply(double[] values, int offset, int count) {
+            return DoubleUtils.average(values, offset, count);
+        }
+    };
+}
@@ -25,7 +25,37 @@ public class DoubleUtils {
     }
 
     public static Double average(List<Double> list) {
-        return list.stream().mapToDouble(d -> d).average().orElse(0.0);
+        double[] values = new double[list.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = list.get(i);
+
+        return average(values, 0, values.length);
+    }
+
+    /**
+     * Averages a range of values using compensated summation, the same way as
+     * {@link java.util.stream.DoubleStream#average()} but independent of the running JDK.
+     */
+    public static double average(double[] values, int offset, int count) {
+        if (count == 0) return 0.0;
+
+        double sum = 0.0, compensation = 0.0, simpleSum = 0.0;
+
+        for (int i = offset; i < offset + count; i++) {
+            double value = values[i];
+
+            double corrected = value - compensation;
+            double next = sum + corrected;
+
+            compensation = (next - sum) - corrected;
+            sum = next;
+            simpleSum += value;
+        }
+
+        if (Double.isNaN(sum) && Double.isInfinite(simpleSum))
+            sum = simpleSum;
+
+        return sum / count;
     }
 
     private static double factorial(int n) {
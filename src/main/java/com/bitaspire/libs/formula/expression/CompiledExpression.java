@@ -0,0 +1,20 @@
+package com.bitaspire.libs.formula.expression;
+
+/**
+ * The <code>CompiledExpression&lt;T&gt;</code> interface represents an expression compiled by the
+ * {@link ExpressionCompiler} into a tree of closures.
+ *
+ * @param <T> The type of operand
+ */
+@FunctionalInterface
+public interface CompiledExpression<T> {
+
+    /**
+     * Evaluate the expression.
+     *
+     * @param variables Values of the variables, in the order they were compiled with
+     * @return Evaluated result
+     */
+    T evaluate(T[] variables);
+
+}
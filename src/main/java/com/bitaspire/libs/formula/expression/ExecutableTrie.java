@@ -0,0 +1,122 @@
+package com.bitaspire.libs.formula.expression;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The <code>ExecutableTrie</code> class finds the longest operator or function label at a position
+ * of an expression, walking one character at a time.
+ */
+final class ExecutableTrie {
+
+    /**
+     * Characters leading to each child, in ascending order.
+     */
+    private final char[] keys;
+
+    /**
+     * Children of this node.
+     */
+    private final ExecutableTrie[] children;
+
+    /**
+     * Label ending at this node, if any.
+     */
+    private final String label;
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param node The mutable node to copy
+     */
+    private ExecutableTrie(Node node) {
+        this.keys = new char[node.children.size()];
+        this.children = new ExecutableTrie[keys.length];
+        this.label = node.label;
+
+        int i = 0;
+        for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+            keys[i] = entry.getKey();
+            children[i++] = new ExecutableTrie(entry.getValue());
+        }
+    }
+
+    /**
+     * Build a trie from a set of labels.
+     *
+     * @param labels The labels
+     * @return The trie
+     */
+    static ExecutableTrie of(Iterable<String> labels) {
+        Node root = new Node();
+
+        for (String label : labels) {
+            Node node = root;
+            for (int i = 0; i < label.length(); i++) {
+                node = node.children.computeIfAbsent(label.charAt(i), c -> new Node());
+            }
+            node.label = label;
+        }
+
+        return new ExecutableTrie(root);
+    }
+
+    /**
+     * Check if the trie contains no labels.
+     *
+     * @return True if empty, false otherwise
+     */
+    boolean isEmpty() {
+        return keys.length == 0 && label == null;
+    }
+
+    /**
+     * Find the longest label starting at an index of a string.
+     *
+     * @param string The string
+     * @param index The index
+     * @return The longest label, or null if none matches
+     */
+    String match(String string, int index) {
+        ExecutableTrie node = this;
+        String match = null;
+
+        for (int i = index; i < string.length(); i++) {
+            node = node.child(string.charAt(i));
+            if (node == null) break;
+
+            if (node.label != null) match = node.label;
+        }
+
+        return match;
+    }
+
+    /**
+     * Get the child for a character.
+     *
+     * @param c The character
+     * @return The child, or null if none
+     */
+    private ExecutableTrie child(char c) {
+        int low = 0, high = keys.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+
+            if (keys[mid] < c) low = mid + 1;
+            else if (keys[mid] > c) high = mid - 1;
+            else return children[mid];
+        }
+
+        return null;
+    }
+
+    /**
+     * Mutable node used while building the trie.
+     */
+    private static final class Node {
+        private final Map<Character, Node> children = new TreeMap<>();
+        private String label;
+    }
+
+}
@@ -66,6 +66,15 @@ public class Expression<T> {
 		this.expressionConfig = expressionConfig;
 	}
 
+	/**
+	 * Get the expression dictionary this expression was built with.
+	 *
+	 * @return The expression dictionary
+	 */
+	public ExpressionDictionary<T> getExpressionDictionary() {
+		return expressionDictionary;
+	}
+
 	/**
 	 * Recursively evaluate the expression tree and return the result.
 	 *
@@ -25,7 +25,6 @@ import com.bitaspire.libs.formula.token.Token;
 import lombok.Getter;
 
 import java.util.List;
-import java.util.Stack;
 
 /**
  * The <code>ExpressionBuilder&lt;T&gt;</code> class provides a partial implementation to build expressions independent of the type of operand.<br>
@@ -75,6 +74,27 @@ public class ExpressionBuilder<T> {
 		this.reset();
 	}
 
+	/**
+	 * Parameterized constructor.<br>
+	 * The dictionary can be shared between builders if it is frozen, see {@link ExpressionDictionary#freeze()}.
+	 *
+	 * @param expressionConfig The expression configuration
+	 * @param expressionDictionary The expression dictionary
+	 */
+	public ExpressionBuilder(ExpressionConfig<T> expressionConfig, ExpressionDictionary<T> expressionDictionary) {
+		this.expressionConfig = expressionConfig;
+		this.expressionDictionary = expressionDictionary;
+	}
+
+	/**
+	 * Set the expression dictionary.
+	 *
+	 * @param expressionDictionary The expression dictionary
+	 */
+	protected void setExpressionDictionary(ExpressionDictionary<T> expressionDictionary) {
+		this.expressionDictionary = expressionDictionary;
+	}
+
 	/**
 	 * Reset the parser.
 	 */
@@ -124,9 +144,9 @@ public class ExpressionBuilder<T> {
 	/**
 	 * Method to form the expression tree.
 	 */
-	private void formTree(Stack<Token> postfix) {
-		while (!postfix.isEmpty()) {
-			Token token = postfix.pop();
+	private void formTree(List<Token> postfix) {
+		for (int i = postfix.size() - 1; i >= 0; i--) {
+			Token token = postfix.get(i);
 
 			if (expression.root == null) {
                 expression.root = new ExpressionNode(token);
@@ -159,7 +179,7 @@ public class ExpressionBuilder<T> {
 
 			// form the postfix expression
 			ExpressionParser<T> parser = new ExpressionParser<T>();
-			Stack<Token> postfix = parser.parse(tokenList);
+			List<Token> postfix = parser.parse(tokenList);
 
 			// form the tree
 			this.formTree(postfix);
@@ -0,0 +1,250 @@
+package com.bitaspire.libs.formula.expression;
+
+import com.bitaspire.libs.formula.exception.Expr4jException;
+import com.bitaspire.libs.formula.token.BinaryOperation;
+import com.bitaspire.libs.formula.token.Function;
+import com.bitaspire.libs.formula.token.Operand;
+import com.bitaspire.libs.formula.token.Operation;
+import com.bitaspire.libs.formula.token.Operator;
+import com.bitaspire.libs.formula.token.OperatorType;
+import com.bitaspire.libs.formula.token.UnaryOperation;
+import com.bitaspire.libs.formula.token.Variable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The <code>ExpressionCompiler&lt;T&gt;</code> class turns the tree of a parsed {@link Expression} into a
+ * tree of small closures, so evaluating it no longer inspects tokens or copies the constants.<br>
+ * {@link UnaryOperation} and {@link BinaryOperation} nodes call their operation directly, any other
+ * operation receives a lazy parameter list as in {@link Expression#evaluate(java.util.Map)}.<br>
+ * Subtrees whose operands are all constant are evaluated once at compile time, except operations
+ * without parameters (e.g. <code>rand()</code>) and operations that fail.
+ *
+ * @param <T> The type of operand
+ */
+public class ExpressionCompiler<T> {
+
+    /**
+     * Expression dictionary.
+     */
+    private final ExpressionDictionary<T> expressionDictionary;
+
+    /**
+     * Labels of the variables, in order.
+     */
+    private final List<String> variables;
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param expressionDictionary The expression dictionary
+     * @param variables Labels of the variables, in order
+     */
+    public ExpressionCompiler(ExpressionDictionary<T> expressionDictionary, String... variables) {
+        this.expressionDictionary = expressionDictionary;
+        this.variables = Arrays.asList(variables);
+    }
+
+    /**
+     * Compile an expression. Variables override any predefined constants with the same label.
+     *
+     * @param expression The parsed expression
+     * @param variables Labels of the variables, in order
+     * @return The compiled expression
+     * @param <T> The type of operand
+     */
+    public static <T> CompiledExpression<T> compile(Expression<T> expression, String... variables) {
+        if (expression.root == null) {
+            throw new Expr4jException("Invalid expression");
+        }
+
+        return new ExpressionCompiler<>(expression.getExpressionDictionary(), variables).compile(expression.root);
+    }
+
+    /**
+     * Recursively compile a node of the expression tree.
+     *
+     * @param node Current node of the expression tree
+     * @return The compiled node
+     */
+    @SuppressWarnings("unchecked")
+    public CompiledExpression<T> compile(ExpressionNode node) {
+        // encountered variable
+        if (node.token instanceof Variable) {
+            String label = ((Variable) node.token).label;
+
+            int index = variables.indexOf(label);
+            if (index >= 0) return values -> values[index];
+
+            if (expressionDictionary.constants.containsKey(label)) {
+                return new Constant<>(expressionDictionary.constants.get(label));
+            }
+
+            return values -> {
+                throw new Expr4jException("Variable not found: " + label);
+            };
+        }
+
+        // encountered operand
+        if (node.token instanceof Operand) {
+            return new Constant<>(((Operand<T>) node.token).value);
+        }
+
+        Operation<T> operation;
+        int operandCount;
+
+        // encountered function
+        if (node.token instanceof Function) {
+            Function<T> function = (Function<T>) node.token;
+
+            operation = function.operation;
+            operandCount = function.parameters;
+        }
+
+        // encountered operator
+        else {
+            Operator<T> operator = (Operator<T>) node.token;
+
+            operation = operator.operation;
+            operandCount = (operator.type == OperatorType.INFIX || operator.type == OperatorType.INFIX_RTL) ? 2 : 1;
+        }
+
+        if (node.children.size() != operandCount) {
+            throw new Expr4jException("Invalid expression");
+        }
+
+        CompiledExpression<T>[] children = new CompiledExpression[operandCount];
+        boolean constant = operandCount > 0;
+
+        for (int i = 0; i < operandCount; i++) {
+            children[i] = compile(node.children.get(i));
+            constant &= children[i] instanceof Constant;
+        }
+
+        CompiledExpression<T> compiled;
+        if (operation instanceof UnaryOperation && operandCount == 1) {
+            compiled = new Unary<>((UnaryOperation<T>) operation, children[0]);
+        }
+        else if (operation instanceof BinaryOperation && operandCount == 2) {
+            compiled = new Binary<>((BinaryOperation<T>) operation, children[0], children[1]);
+        }
+        else {
+            compiled = new Generic<>(operation, children);
+        }
+
+        if (constant) {
+            try {
+                return new Constant<>(compiled.evaluate(null));
+            } catch (RuntimeException e) {
+                // keep the failure for evaluation time, as the interpreted expression does
+            }
+        }
+
+        return compiled;
+    }
+
+    private static final class Constant<T> implements CompiledExpression<T> {
+
+        private final T value;
+
+        private Constant(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public T evaluate(T[] variables) {
+            return value;
+        }
+    }
+
+    private static final class Unary<T> implements CompiledExpression<T> {
+
+        private final UnaryOperation<T> operation;
+        private final CompiledExpression<T> operand;
+
+        private Unary(UnaryOperation<T> operation, CompiledExpression<T> operand) {
+            this.operation = operation;
+            this.operand = operand;
+        }
+
+        @Override
+        public T evaluate(T[] variables) {
+            return operation.apply(operand.evaluate(variables));
+        }
+    }
+
+    private static final class Binary<T> implements CompiledExpression<T> {
+
+        private final BinaryOperation<T> operation;
+        private final CompiledExpression<T> left, right;
+
+        private Binary(BinaryOperation<T> operation, CompiledExpression<T> left, CompiledExpression<T> right) {
+            this.operation = operation;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public T evaluate(T[] variables) {
+            return operation.apply(left.evaluate(variables), right.evaluate(variables));
+        }
+    }
+
+    private static final class Generic<T> implements CompiledExpression<T> {
+
+        private final Operation<T> operation;
+        private final CompiledExpression<T>[] operands;
+
+        private Generic(Operation<T> operation, CompiledExpression<T>[] operands) {
+            this.operation = operation;
+            this.operands = operands;
+        }
+
+        @Override
+        public T evaluate(T[] variables) {
+            return operation.execute(new Parameters<>(operands, variables));
+        }
+    }
+
+    /**
+     * Lazy parameter list of a {@link Generic} node, each operand is evaluated on first access.
+     */
+    private static final class Parameters<T> extends AbstractList<ExpressionParameter<T>> {
+
+        private final CompiledExpression<T>[] operands;
+        private final T[] variables;
+
+        private final ExpressionParameter<T>[] parameters;
+
+        @SuppressWarnings("unchecked")
+        private Parameters(CompiledExpression<T>[] operands, T[] variables) {
+            this.operands = operands;
+            this.variables = variables;
+            this.parameters = new ExpressionParameter[operands.length];
+        }
+
+        @Override
+        public ExpressionParameter<T> get(int index) {
+            if (parameters[index] != null) return parameters[index];
+
+            CompiledExpression<T> operand = operands[index];
+
+            return parameters[index] = new ExpressionParameter<T>(null, null, null) {
+                private T result;
+
+                @Override
+                public T value() {
+                    if (result == null) result = operand.evaluate(variables);
+                    return result;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return operands.length;
+        }
+    }
+}
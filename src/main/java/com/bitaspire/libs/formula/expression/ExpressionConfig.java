@@ -18,7 +18,9 @@
 package com.bitaspire.libs.formula.expression;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * The <code>ExpressionConfig&lt;T&gt;</code> class defines configurations for the expression.
@@ -30,6 +32,11 @@ import java.util.List;
  */
 public abstract class ExpressionConfig<T> {
 
+    /**
+     * Compiled patterns to identify operands, built on first use.
+     */
+    private volatile List<Pattern> operandPatterns;
+
     /**
      * No-Argument Constructor.
      */
@@ -65,4 +72,22 @@ public abstract class ExpressionConfig<T> {
         return list;
     }
 
+    /**
+     * Get the compiled patterns to identify operands.<br>
+     * They are compiled once from {@link #getOperandPattern()} and reused by every tokenizer.
+     *
+     * @return List of compiled patterns
+     */
+    List<Pattern> getOperandPatterns() {
+        List<Pattern> patterns = operandPatterns;
+        if (patterns == null) {
+            patterns = new ArrayList<>();
+            for (String patternString : getOperandPattern()) {
+                patterns.add(Pattern.compile(patternString));
+            }
+            operandPatterns = patterns = Collections.unmodifiableList(patterns);
+        }
+        return patterns;
+    }
+
 }
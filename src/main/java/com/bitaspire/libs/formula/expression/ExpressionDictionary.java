@@ -23,6 +23,7 @@ import com.bitaspire.libs.formula.token.Operator;
 import com.bitaspire.libs.formula.token.OperatorType;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -54,6 +55,18 @@ public class ExpressionDictionary<T> {
     /** Map of constants */
     protected Map<String, T> constants;
 
+    /** Labels of all executables, only kept once the dictionary is frozen */
+    private final Set<String> executables;
+
+    /** Number of modifications, used to know when the cached trie is stale */
+    private int version = 0;
+
+    /** Trie of the labels of all executables */
+    private ExecutableTrie executableTrie;
+
+    /** Version of the dictionary the trie was built for */
+    private int executableTrieVersion = -1;
+
     /**
      * No-Argument Constructor.
      */
@@ -63,6 +76,51 @@ public class ExpressionDictionary<T> {
         this.infixMap = new TreeMap<>();
         this.functionMap = new TreeMap<>();
         this.constants = new TreeMap<>();
+        this.executables = null;
+    }
+
+    /**
+     * Constructor of a frozen copy of a dictionary.
+     *
+     * @param dictionary The dictionary to copy
+     */
+    protected ExpressionDictionary(ExpressionDictionary<T> dictionary) {
+        this.prefixMap = Collections.unmodifiableMap(new HashMap<>(dictionary.prefixMap));
+        this.postfixMap = Collections.unmodifiableMap(new HashMap<>(dictionary.postfixMap));
+        this.infixMap = Collections.unmodifiableMap(new HashMap<>(dictionary.infixMap));
+        this.functionMap = Collections.unmodifiableMap(new HashMap<>(dictionary.functionMap));
+        this.constants = Collections.unmodifiableMap(new HashMap<>(dictionary.constants));
+        this.executables = Collections.unmodifiableSet(dictionary.getExecutables());
+        this.executableTrie = ExecutableTrie.of(executables);
+    }
+
+    /**
+     * Get an immutable, thread-safe copy of this dictionary, backed by hash maps.<br>
+     * Adding or removing anything from the copy throws an {@link Expr4jException}.
+     *
+     * @return The frozen dictionary, or this one if already frozen
+     */
+    public ExpressionDictionary<T> freeze() {
+        return isFrozen() ? this : new ExpressionDictionary<>(this);
+    }
+
+    /**
+     * Check if this dictionary is frozen.
+     *
+     * @return true if it can not be modified, else false
+     */
+    public boolean isFrozen() {
+        return executables != null;
+    }
+
+    /**
+     * Fail if this dictionary is frozen, else record a modification.
+     */
+    private void checkModifiable() {
+        if (isFrozen()) {
+            throw new Expr4jException("Expression dictionary is frozen");
+        }
+        version++;
     }
 
     /**
@@ -71,6 +129,8 @@ public class ExpressionDictionary<T> {
      * @param operator The operator
      */
     public void addOperator(Operator<T> operator) {
+        checkModifiable();
+
         if (operator.type == OperatorType.PREFIX) {
             prefixMap.put(operator.label, operator);
         }
@@ -99,6 +159,8 @@ public class ExpressionDictionary<T> {
      * @param type The type of the operator
      */
     public void removeOperator(String label, OperatorType type) {
+        checkModifiable();
+
         if (type == null) {
             prefixMap.remove(label);
             postfixMap.remove(label);
@@ -194,6 +256,8 @@ public class ExpressionDictionary<T> {
      * @param function The function
      */
     public void addFunction(Function<T> function) {
+        checkModifiable();
+
         functionMap.put(function.label, function);
     }
 
@@ -203,6 +267,8 @@ public class ExpressionDictionary<T> {
      * @param label The label of the function
      */
     public void removeFunction(String label) {
+        checkModifiable();
+
         functionMap.remove(label);
     }
 
@@ -244,6 +310,8 @@ public class ExpressionDictionary<T> {
      * @param value Value of the constant
      */
     public void addConstant(String label, T value) {
+        checkModifiable();
+
         constants.put(label, value);
     }
 
@@ -254,9 +322,21 @@ public class ExpressionDictionary<T> {
      * @return Constant for the specified label if present, else null
      */
     public T removeConstant(String label) {
+        checkModifiable();
+
         return constants.remove(label);
     }
 
+    /**
+     * Check if a constant is present in the parser for the specified label.
+     *
+     * @param label Label of the constant
+     * @return true if present, else false
+     */
+    public boolean hasConstant(String label) {
+        return constants.containsKey(label);
+    }
+
     /**
      * Get constant present in the parser for the specified label.
      *
@@ -276,6 +356,8 @@ public class ExpressionDictionary<T> {
      * @return The list of labels
      */
     Set<String> getExecutables() {
+        if (this.executables != null) return this.executables;
+
         Set<String> executables = new TreeSet<>();
         executables.addAll(prefixMap.keySet());
         executables.addAll(postfixMap.keySet());
@@ -284,4 +366,20 @@ public class ExpressionDictionary<T> {
         return executables;
     }
 
+    /**
+     * Get a trie of the labels of all executables (operators and functions).<br>
+     * It is built once for frozen dictionaries, and rebuilt after any modification otherwise.
+     *
+     * @return The trie
+     */
+    ExecutableTrie getExecutableTrie() {
+        if (isFrozen()) return executableTrie;
+
+        if (executableTrie == null || executableTrieVersion != version) {
+            executableTrie = ExecutableTrie.of(getExecutables());
+            executableTrieVersion = version;
+        }
+        return executableTrie;
+    }
+
 }
@@ -26,8 +26,8 @@ import com.bitaspire.libs.formula.token.Separator;
 import com.bitaspire.libs.formula.token.Token;
 import com.bitaspire.libs.formula.token.Variable;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 
 /**
  * The <code>ExpressionParser&lt;T&gt;</code> class parses expressions independent of the type of operand.<br>
@@ -41,19 +41,29 @@ import java.util.Stack;
 public class ExpressionParser<T> {
 	
 	/**
-	 * Stack to hold the postfix (RPN) expression.
+	 * List holding the postfix (RPN) expression.
 	 */
-	private Stack<Token> postfix;
+	private List<Token> postfix;
 	
 	/**
 	 * Stack to hold the operators.
 	 */
-	private Stack<Token> operatorStack;
+	private Token[] operatorStack;
+
+	/**
+	 * Number of operators in the stack.
+	 */
+	private int operatorCount;
 	
 	/**
 	 * Stack to hold the count of function parameters.
 	 */
-	private Stack<Integer> functionStack;
+	private int[] functionStack;
+
+	/**
+	 * Number of counts in the function stack.
+	 */
+	private int functionCount;
 	
 	/**
 	 * No-Argument Constructor.
@@ -65,13 +75,15 @@ public class ExpressionParser<T> {
 	 * Method to create the postfix (RPN) expression from the infix expression.
 	 *
 	 * @param tokenList The token list
-	 * @return The postfix expression
+	 * @return The postfix expression, in evaluation order
 	 */
-	public Stack<Token> parse(List<Token> tokenList) {
+	public List<Token> parse(List<Token> tokenList) {
 		// initialize members
-		postfix = new Stack<>();
-		operatorStack = new Stack<>();
-		functionStack = new Stack<>();
+		postfix = new ArrayList<>(tokenList.size());
+		operatorStack = new Token[Math.max(tokenList.size(), 1)];
+		operatorCount = 0;
+		functionStack = new int[Math.max(tokenList.size(), 1)];
+		functionCount = 0;
 
 		boolean probableZeroFunction = false;
 
@@ -86,7 +98,7 @@ public class ExpressionParser<T> {
 
 				// open bracket
 				if (separator == Separator.OPEN_BRACKET) {
-					operatorStack.push(separator);
+					pushOperatorStack(separator);
 				}
 
 				// close bracket
@@ -95,11 +107,10 @@ public class ExpressionParser<T> {
 					throwIfOpenBracketOrComma(lastToken);
 
 					if (probableZeroFunction) {
-						if (functionStack.isEmpty()) {
+						if (functionCount == 0) {
 							throw new Expr4jException("Invalid expression");
 						}
-						functionStack.pop();
-						functionStack.push(0);
+						functionStack[functionCount - 1] = 0;
 					}
 
 					evaluateParenthesis();
@@ -111,14 +122,14 @@ public class ExpressionParser<T> {
 					throwIfNotPostfix(lastToken);
 					throwIfOpenBracketOrComma(lastToken);
 
-					while (!operatorStack.isEmpty() && !(operatorStack.peek() instanceof Function)) {
-						postfix.push(operatorStack.pop());
+					while (operatorCount > 0 && !(operatorStack[operatorCount - 1] instanceof Function)) {
+						postfix.add(operatorStack[--operatorCount]);
 					}
 
-					if (functionStack.isEmpty()) {
+					if (functionCount == 0) {
 						throw new Expr4jException("Invalid expression");
 					}
-					functionStack.push(functionStack.pop() + 1);
+					functionStack[functionCount - 1]++;
 				}
 
 				probableZeroFunction = false;
@@ -133,10 +144,9 @@ public class ExpressionParser<T> {
 
 				i++;
 
-				operatorStack.push(function);
+				pushOperatorStack(function);
 
-				if (function.parameters == 0) functionStack.push(0);
-				else functionStack.push(1);
+				functionStack[functionCount++] = function.parameters == 0 ? 0 : 1;
 
 				if (function.parameters == Function.VARIABLE_PARAMETERS) probableZeroFunction = true;
 			}
@@ -162,7 +172,7 @@ public class ExpressionParser<T> {
 
 			// numbers and variables
 			else if (token instanceof Operand || token instanceof Variable) {
-				postfix.push(token);
+				postfix.add(token);
 				probableZeroFunction = false;
 			}
 
@@ -175,17 +185,26 @@ public class ExpressionParser<T> {
 		}
 
 		// process operator stack
-		while (!operatorStack.isEmpty()) {
-			Token token = operatorStack.peek();
+		while (operatorCount > 0) {
+			Token token = operatorStack[operatorCount - 1];
 			if (token instanceof Function || token instanceof Separator) {
 				throw new Expr4jException("Unmatched number of parenthesis");
 			}
-			postfix.push(operatorStack.pop());
+			postfix.add(operatorStack[--operatorCount]);
 		}
 
 		return postfix;
 	}
 
+	/**
+	 * Push a token to the operator stack.
+	 *
+	 * @param token The token to push
+	 */
+	private void pushOperatorStack(Token token) {
+		operatorStack[operatorCount++] = token;
+	}
+
 	/**
 	 * Push operator to operator stack or postfix stack.
 	 *
@@ -193,17 +212,17 @@ public class ExpressionParser<T> {
 	 */
 	private void pushOperator(Operator<T> operator) {
 		if (operator.type != OperatorType.PREFIX) {
-			while (!operatorStack.isEmpty() &&
-					(operatorStack.peek() instanceof Operator &&
-							operator.compareTo((Operator<T>) operatorStack.peek()) > 0)) {
-				postfix.push(operatorStack.pop());
+			while (operatorCount > 0 &&
+					(operatorStack[operatorCount - 1] instanceof Operator &&
+							operator.compareTo((Operator<T>) operatorStack[operatorCount - 1]) > 0)) {
+				postfix.add(operatorStack[--operatorCount]);
 			}
 		}
 		if (operator.type == OperatorType.POSTFIX) {
-			postfix.push(operator);
+			postfix.add(operator);
 		}
 		else {
-			operatorStack.push(operator);
+			pushOperatorStack(operator);
 		}
 	}
 
@@ -214,17 +233,17 @@ public class ExpressionParser<T> {
 		boolean flag = false;
 
 		// pop until left parenthesis
-		while (!operatorStack.isEmpty()) {
-			Token token = operatorStack.peek();
+		while (operatorCount > 0) {
+			Token token = operatorStack[operatorCount - 1];
 
 			// encountered a function
 			if (token instanceof Function) {
-				Function<T> function = (Function<T>) operatorStack.pop();
+				Function<T> function = (Function<T>) operatorStack[--operatorCount];
 
-				if (functionStack.isEmpty()) {
+				if (functionCount == 0) {
 					throw new Expr4jException("Invalid expression");
 				}
-				int actualParameters = functionStack.pop();
+				int actualParameters = functionStack[--functionCount];
 
 				if (function.parameters == Function.VARIABLE_PARAMETERS) {
 					function = new Function<T>(function.label, actualParameters, function.operation);
@@ -233,7 +252,7 @@ public class ExpressionParser<T> {
 					throw new Expr4jException("Incorrect number of parameters for function: " + function.label);
 				}
 
-				postfix.push(function);
+				postfix.add(function);
 
 				flag = true;
 				break;
@@ -241,12 +260,12 @@ public class ExpressionParser<T> {
 
 			// encountered an open bracket
 			else if (token instanceof Separator) {
-				operatorStack.pop();
+				operatorCount--;
 
-				if (!operatorStack.isEmpty() && operatorStack.peek() instanceof Operator) {
-					Operator<T> operator = (Operator<T>) operatorStack.peek();
+				if (operatorCount > 0 && operatorStack[operatorCount - 1] instanceof Operator) {
+					Operator<T> operator = (Operator<T>) operatorStack[operatorCount - 1];
 					if (operator.type == OperatorType.PREFIX) {
-						postfix.push(operatorStack.pop());
+						postfix.add(operatorStack[--operatorCount]);
 					}
 				}
 
@@ -255,7 +274,7 @@ public class ExpressionParser<T> {
 			}
 
 			// evaluate top of stack
-			postfix.push(operatorStack.pop());
+			postfix.add(operatorStack[--operatorCount]);
 		}
 
 		if (!flag) {
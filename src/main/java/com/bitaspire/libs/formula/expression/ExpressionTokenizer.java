@@ -30,7 +30,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * The <code>ExpressionTokenizer&lt;T&gt;</code> class tokenizes expressions independent of the type of operand.
@@ -77,41 +76,28 @@ public class ExpressionTokenizer<T> {
         // list of tokens
         List<Token> tokenList = new ArrayList<>();
 
-        // initialize patterns
-        Pattern executablePattern = Pattern.compile(expressionDictionary.getExecutables()
-                .stream()
-                .map(Pattern::quote)
-                .sorted((e1, e2) -> (e2.length() - e1.length()))
-                .collect(Collectors.joining("|")));
-
-        Pattern unaryPattern = Pattern.compile("\\+|\\-");
-        Pattern separatorPattern = Pattern.compile("\\(|\\)|,");
-        Pattern variablePattern = Pattern.compile("[a-zA-Z]+[0-9]*[a-zA-Z]*");
-        Pattern whitespacePattern = Pattern.compile("\\s+");
-
-        List<Pattern> operandPatternList = new ArrayList<>();
-        for (String patternString : expressionConfig.getOperandPattern()) {
-            Pattern operandPattern = Pattern.compile(patternString);
-            operandPatternList.add(operandPattern);
-        }
+        // dictionary lookups and precompiled operand patterns
+        ExecutableTrie executables = expressionDictionary.getExecutableTrie();
+        List<Pattern> operandPatterns = expressionConfig.getOperandPatterns();
+        Matcher[] operandMatchers = new Matcher[operandPatterns.size()];
 
         // initialize parsing variables
         int index = 0;
+        int length = expr.length();
         Token lastToken = null;
         boolean probableUnary = true;
 
         // while has more characters
         outer:
-        while (index < expr.length()) {
-            Matcher matcher;
+        while (index < length) {
+            char c = expr.charAt(index);
 
             // check for separator
-            matcher = separatorPattern.matcher(expr.substring(index));
-            if (matcher.lookingAt()) {
-                String match = matcher.group();
-                index += match.length();
+            if (c == '(' || c == ')' || c == ',') {
+                index++;
 
-                Separator separator = Separator.getSeparator(match);
+                Separator separator = c == '(' ? Separator.OPEN_BRACKET :
+                        (c == ')' ? Separator.CLOSE_BRACKET : Separator.COMMA);
 
                 if (separator == Separator.OPEN_BRACKET) {
                     addImplicitMultiplication(tokenList, lastToken);
@@ -131,12 +117,10 @@ public class ExpressionTokenizer<T> {
             }
 
             // check for unary operators
-            matcher = unaryPattern.matcher(expr.substring(index));
-            if (probableUnary && matcher.lookingAt()) {
-                String match = matcher.group();
-                index += match.length();
+            if (probableUnary && (c == '+' || c == '-')) {
+                index++;
 
-                Operator<T> operator = expressionDictionary.getPrefixOperator(match);
+                Operator<T> operator = expressionDictionary.getPrefixOperator(c == '+' ? "+" : "-");
                 tokenList.add(operator);
 
                 probableUnary = false;
@@ -146,9 +130,8 @@ public class ExpressionTokenizer<T> {
             }
 
             // check for executables
-            matcher = executablePattern.matcher(expr.substring(index));
-            if (matcher.lookingAt()) {
-                String match = matcher.group();
+            String match = executables.isEmpty() ? "" : executables.match(expr, index);
+            if (match != null) {
                 index += match.length();
 
                 // encountered a function
@@ -194,10 +177,15 @@ public class ExpressionTokenizer<T> {
             }
 
             // check for operands
-            for (Pattern numberPattern : operandPatternList) {
-                matcher = numberPattern.matcher(expr.substring(index));
+            for (int i = 0; i < operandMatchers.length; i++) {
+                Matcher matcher = operandMatchers[i];
+                if (matcher == null) {
+                    matcher = operandMatchers[i] = operandPatterns.get(i).matcher(expr);
+                }
+
+                matcher.region(index, length);
                 if (matcher.lookingAt()) {
-                    String match = matcher.group();
+                    match = matcher.group();
                     index += match.length();
 
                     addImplicitMultiplication(tokenList, lastToken);
@@ -212,11 +200,15 @@ public class ExpressionTokenizer<T> {
                 }
             }
 
-            // check for variables
-            matcher = variablePattern.matcher(expr.substring(index));
-            if (matcher.lookingAt()) {
-                String match = matcher.group();
-                index += match.length();
+            // check for variables, same as [a-zA-Z]+[0-9]*[a-zA-Z]*
+            if (isLetter(c)) {
+                int end = index + 1;
+                while (end < length && isLetter(expr.charAt(end))) end++;
+                while (end < length && isDigit(expr.charAt(end))) end++;
+                while (end < length && isLetter(expr.charAt(end))) end++;
+
+                match = expr.substring(index, end);
+                index = end;
 
                 addImplicitMultiplication(tokenList, lastToken);
 
@@ -229,11 +221,10 @@ public class ExpressionTokenizer<T> {
                 continue;
             }
 
-            // check for whitespace
-            matcher = whitespacePattern.matcher(expr.substring(index));
-            if (matcher.lookingAt()) {
-                String match = matcher.group();
-                index += match.length();
+            // check for whitespace, same as \s+
+            if (isWhitespace(c)) {
+                index++;
+                while (index < length && isWhitespace(expr.charAt(index))) index++;
 
                 continue;
             }
@@ -245,6 +236,36 @@ public class ExpressionTokenizer<T> {
         return tokenList;
     }
 
+    /**
+     * Check if a character is an ASCII letter.
+     *
+     * @param c The character
+     * @return True if letter, false otherwise
+     */
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Check if a character is an ASCII digit.
+     *
+     * @param c The character
+     * @return True if digit, false otherwise
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Check if a character is whitespace, as matched by <code>\s</code> in a regular expression.
+     *
+     * @param c The character
+     * @return True if whitespace, false otherwise
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
     /**
      * Check if a string is blank or not.
      *
@@ -0,0 +1,30 @@
+package com.bitaspire.libs.formula.token;
+
+import com.bitaspire.libs.formula.expression.ExpressionParameter;
+
+import java.util.List;
+
+/**
+ * The <code>BinaryOperation&lt;T&gt;</code> interface represents an operation on exactly two operands.<br>
+ * Compiled expressions call {@link #apply(Object, Object)} directly instead of building a parameter list.
+ *
+ * @param <T> The type of operand
+ */
+@FunctionalInterface
+public interface BinaryOperation<T> extends Operation<T> {
+
+    /**
+     * Apply the operation.
+     *
+     * @param left The first operand
+     * @param right The second operand
+     * @return Evaluated result
+     */
+    T apply(T left, T right);
+
+    @Override
+    default T execute(List<ExpressionParameter<T>> parameters) {
+        return apply(parameters.get(0).value(), parameters.get(1).value());
+    }
+
+}
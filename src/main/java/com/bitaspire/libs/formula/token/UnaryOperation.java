@@ -0,0 +1,29 @@
+package com.bitaspire.libs.formula.token;
+
+import com.bitaspire.libs.formula.expression.ExpressionParameter;
+
+import java.util.List;
+
+/**
+ * The <code>UnaryOperation&lt;T&gt;</code> interface represents an operation on exactly one operand.<br>
+ * Compiled expressions call {@link #apply(Object)} directly instead of building a parameter list.
+ *
+ * @param <T> The type of operand
+ */
+@FunctionalInterface
+public interface UnaryOperation<T> extends Operation<T> {
+
+    /**
+     * Apply the operation.
+     *
+     * @param operand The operand
+     * @return Evaluated result
+     */
+    T apply(T operand);
+
+    @Override
+    default T execute(List<ExpressionParameter<T>> parameters) {
+        return apply(parameters.get(0).value());
+    }
+
+}
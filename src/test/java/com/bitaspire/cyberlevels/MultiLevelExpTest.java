@@ -0,0 +1,86 @@
+package com.bitaspire.cyberlevels;
+
+import com.bitaspire.cyberlevels.user.LevelUser;
+import com.bitaspire.cyberlevels.user.UserManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Moves a user across several levels at once, with a formula left on the textual path by its
+ * external placeholder, so every crossed level must be charged its own requirement.
+ */
+class MultiLevelExpTest {
+
+    private static final String LEVELS = "levels:\n" +
+            "  starting:\n" +
+            "    level: 1\n" +
+            "    experience: 0\n" +
+            "  maximum:\n" +
+            "    level: 25\n" +
+            "  experience:\n" +
+            "    general-formula: '{level} * 100 + %test_bonus%'\n";
+
+    @TempDir
+    File folder;
+
+    private final UUID uuid = UUID.randomUUID();
+
+    private DoubleLevelSystem system;
+    private LevelUser<Double> user;
+
+    @BeforeEach
+    void setup() throws Exception {
+        system = new DoubleLevelSystem(TestServer.plugin(folder, LEVELS));
+        system.placeholderFormatter = (player, string) -> string.replace("%test_bonus%", "10");
+
+        user = system.createOffline(uuid);
+        system.setUserManager(TestServer.stub(UserManager.class,
+                (proxy, method, args) -> "getUser".equals(method.getName()) ? user : null));
+    }
+
+    @Test
+    void chargesEachGainedLevelItsOwnRequirement() {
+        assertEquals(110.0, system.getRequiredExp(1, uuid));
+        assertEquals(310.0, system.getRequiredExp(3, uuid));
+
+        // 110 + 210 + 310 to reach level 4, where 70 are left
+        user.addExp(700.0, false, false);
+
+        assertEquals(4, user.getLevel());
+        assertEquals(70.0, user.getExp());
+        assertEquals(410.0, user.getRequiredExp());
+    }
+
+    @Test
+    void refillsEachLostLevelWithItsOwnRequirement() {
+        user.addExp(700.0, false, false);
+
+        // 70 of level 4 and 310 of level 3, taking 20 of the 210 of level 2
+        user.removeExp(400.0, false);
+
+        assertEquals(2, user.getLevel());
+        assertEquals(190.0, user.getExp());
+    }
+
+    @Test
+    void evaluatesEachLevelOfARange() {
+        double[] target = new double[4];
+        system.getRequiredExp(1, target, 0, target.length, uuid, true);
+
+        assertArrayEquals(new double[] {110, 210, 310, 410}, target);
+
+        List<Double> results = new ArrayList<>();
+        system.forEachRequiredExp(2, 4, uuid, (value, level) -> results.add(value));
+
+        assertEquals(Arrays.asList(210.0, 310.0, 410.0), results);
+    }
+}
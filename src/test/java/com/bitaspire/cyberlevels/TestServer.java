@@ -0,0 +1,123 @@
+package com.bitaspire.cyberlevels;
+
+import com.bitaspire.cyberlevels.cache.Cache;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Server;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginLoader;
+import org.bukkit.plugin.java.JavaPlugin;
+import sun.misc.Unsafe;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless environment for the tests, set up as the one of the benchmarks.
+ * <p>
+ * Each plugin is initialized on its own data folder, where the given levels file is written
+ * before the bundled configuration files are saved and loaded. The plugin is never enabled,
+ * so the side effects of level changes run on the calling thread.
+ */
+final class TestServer {
+
+    private static final Logger LOGGER = Logger.getLogger("TestServer");
+
+    private static Server server;
+
+    private TestServer() {}
+
+    static synchronized CyberLevels plugin(File folder, String levels) throws Exception {
+        if (server == null) {
+            LOGGER.setLevel(Level.WARNING);
+
+            server = stub(Server.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getLogger":
+                        return LOGGER;
+                    case "getName":
+                        return "TestServer";
+                    case "getVersion":
+                        return "git-Test (MC: 1.16.5)";
+                    case "getBukkitVersion":
+                        return "1.16.5-R0.1-SNAPSHOT";
+                    case "getOfflinePlayer":
+                        return args[0] instanceof UUID ? offlinePlayer((UUID) args[0]) : null;
+                    default:
+                        return null;
+                }
+            });
+            Bukkit.setServer(server);
+        }
+
+        Files.write(new File(folder, "levels.yml").toPath(), levels.getBytes(StandardCharsets.UTF_8));
+
+        Field field = Unsafe.class.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+
+        CyberLevels main = (CyberLevels) ((Unsafe) field.get(null)).allocateInstance(CyberLevels.class);
+
+        Method init = JavaPlugin.class.getDeclaredMethod("init",
+                PluginLoader.class, Server.class, PluginDescriptionFile.class,
+                File.class, File.class, ClassLoader.class);
+        init.setAccessible(true);
+        init.invoke(main, null, server,
+                new PluginDescriptionFile("CyberLevels", "test", CyberLevels.class.getName()),
+                folder, new File(folder, "CyberLevels.jar"), TestServer.class.getClassLoader());
+
+        CyberLevels.instance = main;
+        main.cache = new Cache(main);
+
+        return main;
+    }
+
+    static OfflinePlayer offlinePlayer(UUID uuid) {
+        return stub(OfflinePlayer.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uuid;
+                case "getName":
+                    return "Test";
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * Creates a proxy answering the handled methods, and null, false or zero to the rest.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(TestServer.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            if (method.getParameterCount() == 0) return System.identityHashCode(proxy);
+                            break;
+                        case "equals":
+                            if (method.getParameterCount() == 1) return proxy == args[0];
+                            break;
+                        case "toString":
+                            if (method.getParameterCount() == 0) return type.getSimpleName() + "Stub";
+                            break;
+                    }
+
+                    Object result = handler.invoke(proxy, method, args);
+                    Class<?> returned = method.getReturnType();
+
+                    return result == null && returned.isPrimitive() && returned != void.class ?
+                            Array.get(Array.newInstance(returned, 1), 0) :
+                            result;
+                });
+    }
+}
@@ -0,0 +1,120 @@
+package com.bitaspire.cyberlevels;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the leaderboard query of the SQLite storage against a real database file.
+ */
+class TopUsersQueryTest {
+
+    private static final String TABLE = "levels";
+
+    @TempDir
+    File folder;
+
+    private DatabaseFactory.SQLite<Double> database;
+    private Connection connection;
+
+    @BeforeEach
+    void open() throws SQLException {
+        File file = new File(folder, "data.db");
+
+        database = new DatabaseFactory.SQLite<>(null, null, file.getPath(), TABLE);
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    private static UUID uuid(int id) {
+        return new UUID(0, id);
+    }
+
+    private void upsert(int id, long level, String exp) throws SQLException {
+        try (PreparedStatement ps = database.prepareUpsert(connection, uuid(id), level, exp, System.currentTimeMillis())) {
+            ps.executeUpdate();
+        }
+    }
+
+    private List<UUID> top(int limit) throws SQLException {
+        List<UUID> uuids = new ArrayList<>();
+        for (DatabaseFactory.DatabaseImpl.Row row : database.readTop(connection, limit))
+            uuids.add(row.uuid);
+        return uuids;
+    }
+
+    @Test
+    void ranksByLevelThenNumericExp() throws SQLException {
+        database.createTargetTable(connection);
+        database.createRankIndex(connection);
+
+        upsert(1, 5, "9.5");
+        upsert(2, 5, "10");
+        upsert(3, 7, "0");
+        upsert(4, 2, "500");
+
+        // As text, "9.5" would be ranked above "10"
+        List<UUID> top = top(3);
+        assertEquals(3, top.size());
+        assertEquals(uuid(3), top.get(0));
+        assertEquals(uuid(2), top.get(1));
+        assertEquals(uuid(1), top.get(2));
+    }
+
+    @Test
+    void upsertKeepsRankColumnInSync() throws SQLException {
+        database.createTargetTable(connection);
+        database.createRankIndex(connection);
+
+        upsert(1, 5, "20");
+        upsert(2, 5, "30");
+        upsert(1, 5, "40");
+
+        List<UUID> top = top(2);
+        assertEquals(uuid(1), top.get(0));
+        assertEquals(uuid(2), top.get(1));
+    }
+
+    @Test
+    void backfillsRankColumnOfExistingRows() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate("CREATE TABLE \"" + TABLE + "\" (\"UUID\" TEXT PRIMARY KEY, \"LEVEL\" INTEGER, " +
+                    "\"EXP\" TEXT, \"UPDATED_AT\" INTEGER NOT NULL DEFAULT 0)");
+            st.executeUpdate("INSERT INTO \"" + TABLE + "\" VALUES ('" + uuid(1) + "', 4, '9.5', 0)");
+            st.executeUpdate("INSERT INTO \"" + TABLE + "\" VALUES ('" + uuid(2) + "', 4, '100', 0)");
+            st.executeUpdate("INSERT INTO \"" + TABLE + "\" VALUES ('" + uuid(3) + "', 3, 'not a number', 0)");
+        }
+
+        database.addRankColumn(connection);
+        database.createRankIndex(connection);
+
+        List<UUID> top = top(3);
+        assertEquals(uuid(2), top.get(0));
+        assertEquals(uuid(1), top.get(1));
+        assertEquals(uuid(3), top.get(2));
+
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT \"EXP_NUM\" FROM \"" + TABLE + "\" WHERE \"UUID\"='" + uuid(3) + "'")) {
+            assertTrue(rs.next());
+            assertEquals(0.0, rs.getDouble(1));
+        }
+    }
+}